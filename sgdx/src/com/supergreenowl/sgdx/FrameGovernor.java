@@ -0,0 +1,245 @@
+package com.supergreenowl.sgdx;
+
+/**
+ * Keeps frames within a time budget by trading quality for speed when a device cannot keep up.
+ * <p>The time spent updating and drawing each frame is measured and smoothed. While the smoothed frame time
+ * stays over budget, the governor steps down through its actions one at a time, in the order they were added,
+ * so the cheapest losses in quality are made first. Once there is enough headroom for long enough the most
+ * recent action is undone, one at a time, until everything is back to full quality.
+ * <p>Update and draw times can be recorded from different threads, but {@link #endFrame()} and therefore
+ * every action runs on the thread that records updates.
+ * @author Luke
+ *
+ */
+public class FrameGovernor {
+
+	private static final float NANOS_PER_SECOND = 1000000000f;
+
+	// weight of the latest frame in the smoothed times
+	private static final float SMOOTHING = 0.1f;
+
+	// frames that must be over budget before stepping down and under the recovery budget before stepping back up
+	private static final int DEFAULT_STEP_DOWN_FRAMES = 10;
+	private static final int DEFAULT_RECOVERY_FRAMES = 60;
+
+	// fraction of the budget that frames must fit in before any quality is restored
+	private static final float DEFAULT_RECOVERY_FRACTION = 0.7f;
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	private final float budget;
+	private Action[] actions = new Action[INITIAL_CAPACITY];
+	private int actionCount = 0;
+
+	private boolean isConcurrent = false;
+	private int stepDownFrames = DEFAULT_STEP_DOWN_FRAMES;
+	private int recoveryFrames = DEFAULT_RECOVERY_FRAMES;
+	private float recoveryFraction = DEFAULT_RECOVERY_FRACTION;
+
+	// update time so far this frame; draw time of the last frame drawn
+	private long updateNanos = 0L;
+	private volatile long drawNanos = 0L;
+
+	private volatile float updateTime = 0f;
+	private volatile float drawTime = 0f;
+	private volatile float frameTime = 0f;
+	private volatile int level = 0;
+
+	private int overBudgetFrames = 0;
+	private int underBudgetFrames = 0;
+
+	/**
+	 * Creates a new governor with no actions.
+	 * @param budget Target time for each frame in seconds.
+	 */
+	public FrameGovernor(float budget) {
+		if(budget <= 0f) throw new IllegalArgumentException("budget must be positive");
+		this.budget = budget;
+	}
+
+	/**
+	 * Adds an action to take when frames are over budget, after all the actions already added.
+	 * @param action Action.
+	 */
+	public void addAction(Action action) {
+		if(action == null) throw new IllegalArgumentException("action must not be null");
+
+		if(actionCount == actions.length) {
+			Action[] copy = new Action[actions.length * 2];
+			System.arraycopy(actions, 0, copy, 0, actionCount);
+			actions = copy;
+		}
+
+		actions[actionCount++] = action;
+	}
+
+	/**
+	 * Sets whether updates and draws run at the same time on different threads.
+	 * If they do, a frame takes as long as the slower of the two rather than both together.
+	 * @param isConcurrent True if updating and drawing are on different threads.
+	 */
+	public void setConcurrent(boolean isConcurrent) {
+		this.isConcurrent = isConcurrent;
+	}
+
+	/**
+	 * Determines if updates and draws run at the same time on different threads.
+	 * @return True if they do.
+	 */
+	public boolean isConcurrent() {
+		return isConcurrent;
+	}
+
+	/**
+	 * Sets how quickly this governor reacts to changes in frame time.
+	 * @param stepDownFrames Frames in a row that must be over budget before taking the next action.
+	 * @param recoveryFrames Frames in a row that must fit the recovery budget before undoing the last action.
+	 * @param recoveryFraction Fraction of the budget that frames must fit in to count towards recovery.
+	 */
+	public void setResponse(int stepDownFrames, int recoveryFrames, float recoveryFraction) {
+		if(stepDownFrames <= 0 || recoveryFrames <= 0) throw new IllegalArgumentException("frame counts must be positive");
+		if(recoveryFraction <= 0f || recoveryFraction > 1f) throw new IllegalArgumentException("recovery fraction must be in (0, 1]");
+
+		this.stepDownFrames = stepDownFrames;
+		this.recoveryFrames = recoveryFrames;
+		this.recoveryFraction = recoveryFraction;
+	}
+
+	/**
+	 * Records time spent updating the model. Can be called several times in a frame.
+	 * @param nanos Time in nanoseconds.
+	 */
+	public void recordUpdate(long nanos) {
+		updateNanos += nanos;
+	}
+
+	/**
+	 * Records the time taken to draw a frame. Can be called from a different thread to updates.
+	 * @param nanos Time in nanoseconds.
+	 */
+	public void recordDraw(long nanos) {
+		drawNanos = nanos;
+	}
+
+	/**
+	 * Ends a frame, taking or undoing an action if the frame times call for it.
+	 * Must be called from the thread that records updates.
+	 */
+	public void endFrame() {
+		long draw = drawNanos;
+		long frame = isConcurrent ? Math.max(updateNanos, draw) : updateNanos + draw;
+
+		updateTime = smooth(updateTime, updateNanos / NANOS_PER_SECOND);
+		drawTime = smooth(drawTime, draw / NANOS_PER_SECOND);
+		frameTime = smooth(frameTime, frame / NANOS_PER_SECOND);
+		updateNanos = 0L;
+
+		overBudgetFrames = frameTime > budget ? overBudgetFrames + 1 : 0;
+		underBudgetFrames = frameTime <= budget * recoveryFraction ? underBudgetFrames + 1 : 0;
+
+		if(overBudgetFrames >= stepDownFrames && level < actionCount) {
+			actions[level].degrade();
+			level++;
+			overBudgetFrames = 0;
+		}
+		else if(underBudgetFrames >= recoveryFrames && level > 0) {
+			level--;
+			actions[level].restore();
+			underBudgetFrames = 0;
+		}
+	}
+
+	/**
+	 * Undoes every action that has been taken.
+	 * Must be called from the thread that records updates.
+	 */
+	public void reset() {
+		while(level > 0) {
+			level--;
+			actions[level].restore();
+		}
+
+		overBudgetFrames = 0;
+		underBudgetFrames = 0;
+	}
+
+	/**
+	 * Gets the target time for each frame.
+	 * @return Time in seconds.
+	 */
+	public float getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Gets how many actions are currently taken.
+	 * @return Number of actions from 0, for full quality, to {@link #getActionCount()}.
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * Gets how many actions this governor can take.
+	 * @return Number of actions.
+	 */
+	public int getActionCount() {
+		return actionCount;
+	}
+
+	/**
+	 * Gets the smoothed time taken by each frame.
+	 * @return Time in seconds.
+	 */
+	public float getFrameTime() {
+		return frameTime;
+	}
+
+	/**
+	 * Gets the smoothed time spent updating in each frame.
+	 * @return Time in seconds.
+	 */
+	public float getUpdateTime() {
+		return updateTime;
+	}
+
+	/**
+	 * Gets the smoothed time spent drawing each frame.
+	 * @return Time in seconds.
+	 */
+	public float getDrawTime() {
+		return drawTime;
+	}
+
+	@Override
+	public String toString() {
+		return "level " + level + "/" + actionCount + " frame " + toMillis(frameTime) + "ms (update " + toMillis(updateTime)
+				+ "ms, draw " + toMillis(drawTime) + "ms) budget " + toMillis(budget) + "ms";
+	}
+
+	private static float smooth(float average, float latest) {
+		return average + (latest - average) * SMOOTHING;
+	}
+
+	private static float toMillis(float seconds) {
+		return Math.round(seconds * 10000f) / 10f;
+	}
+
+	/**
+	 * Something that makes frames cheaper at some cost to quality.
+	 * @author Luke
+	 *
+	 */
+	public interface Action {
+
+		/**
+		 * Lowers quality to save time.
+		 */
+		void degrade();
+
+		/**
+		 * Restores the quality lost by {@link #degrade()}.
+		 */
+		void restore();
+	}
+}
@@ -2,20 +2,66 @@ package com.supergreenowl.sgdx;
 
 /**
  * Measures elapsed game time.
+ * <p>A clock can drive a {@link TimerWheel}, so that timers fire as the clock ticks past them.
  * @author Luke
  */
 public class GameClock implements Clock, Resettable {
 
 	private float totalTime = 0f;
 	private float lastTick = 0f;
+	private float timeScale = 1f;
+	private TimerWheel timers = null;
 	
 	/**
-	 * Records the passage of time.
+	 * Records the passage of real time, firing any timers that are now due.
+	 * The game time measured is the real time multiplied by the time scale.
 	 * @param elapsedTime Time in seconds that have passed.
 	 */
 	public void tick(float elapsedTime) {
+		tickGameTime(elapsedTime * timeScale);
+	}
+	
+	/**
+	 * Records the passage of game time, ignoring the time scale, and fires any timers that are now due.
+	 * @param elapsedTime Game time in seconds that has passed.
+	 */
+	public void tickGameTime(float elapsedTime) {
 		lastTick = elapsedTime;
 		totalTime += elapsedTime;
+		if(timers != null) timers.advance(totalTime);
+	}
+	
+	/**
+	 * Sets how fast game time passes compared to real time. The time scale is not reset with this clock.
+	 * @param timeScale Game seconds per real second, where 1 is real time.
+	 */
+	public void setTimeScale(float timeScale) {
+		if(timeScale <= 0f) throw new IllegalArgumentException("time scale must be positive");
+		this.timeScale = timeScale;
+	}
+	
+	/**
+	 * Gets how fast game time passes compared to real time.
+	 * @return Game seconds per real second.
+	 */
+	public float getTimeScale() {
+		return timeScale;
+	}
+	
+	/**
+	 * Sets the timers that this clock drives. The timers are reset along with this clock.
+	 * @param timers Timers starting at the current time, or null for none.
+	 */
+	public void setTimers(TimerWheel timers) {
+		this.timers = timers;
+	}
+	
+	/**
+	 * Gets the timers that this clock drives.
+	 * @return Timers or null if there are none.
+	 */
+	public TimerWheel getTimers() {
+		return timers;
 	}
 	
 	/**
@@ -27,7 +73,7 @@ public class GameClock implements Clock, Resettable {
 	}
 	
 	/**
-	 * Gets the duration of the last tick.
+	 * Gets the duration of the last tick in game time.
 	 * @return Last tick in seconds.
 	 */
 	public float getTick() {
@@ -35,12 +81,13 @@ public class GameClock implements Clock, Resettable {
 	}
 	
 	/**
-	 * Resets this clock back to zero.
+	 * Resets this clock back to zero, cancelling any pending timers.
 	 */
 	@Override
 	public void reset() {
 		totalTime = 0f;
 		lastTick = 0f;
+		if(timers != null) timers.reset();
 	}
 
 	@Override
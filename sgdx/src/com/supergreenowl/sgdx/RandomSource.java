@@ -0,0 +1,149 @@
+package com.supergreenowl.sgdx;
+
+/**
+ * Fast, seedable pseudo-random number generator using the SplitMix64 algorithm.
+ * <p>Unlike {@link java.util.Random}, instances are not synchronised so they must not be shared between threads.
+ * Give each thread or each simulation its own instance, using {@link #split()} to derive independent
+ * generators from one seed. The same seed always produces the same sequence.
+ * @author Luke
+ *
+ */
+public class RandomSource {
+
+	// odd constant that the state advances by on each call
+	private static final long GAMMA = 0x9e3779b97f4a7c15L;
+
+	private static final float FLOAT_UNIT = 1f / (1 << 24);
+	private static final double DOUBLE_UNIT = 1d / (1L << 53);
+
+	private long state;
+
+	private double nextGaussian;
+	private boolean hasNextGaussian = false;
+
+	/**
+	 * Creates a new generator seeded from the current time.
+	 */
+	public RandomSource() {
+		this(mix(System.nanoTime()) ^ System.currentTimeMillis());
+	}
+
+	/**
+	 * Creates a new generator.
+	 * @param seed Initial seed.
+	 */
+	public RandomSource(long seed) {
+		setSeed(seed);
+	}
+
+	/**
+	 * Restarts this generator from a seed.
+	 * @param seed Seed.
+	 */
+	public void setSeed(long seed) {
+		state = seed;
+		hasNextGaussian = false;
+	}
+
+	/**
+	 * Creates a new generator seeded from this generator.
+	 * The sequences of the two generators are statistically independent.
+	 * @return New generator.
+	 */
+	public RandomSource split() {
+		return new RandomSource(nextLong());
+	}
+
+	/**
+	 * Gets the next pseudo-random long. All values are equally likely.
+	 * @return Random value.
+	 */
+	public long nextLong() {
+		state += GAMMA;
+		return mix(state);
+	}
+
+	/**
+	 * Gets the next pseudo-random int. All values are equally likely.
+	 * @return Random value.
+	 */
+	public int nextInt() {
+		return (int)(nextLong() >>> 32);
+	}
+
+	/**
+	 * Gets a pseudo-random int between 0 (inclusive) and a bound (exclusive). All values are equally likely.
+	 * @param bound Upper bound. Must be positive.
+	 * @return Random value.
+	 */
+	public int nextInt(int bound) {
+		if(bound <= 0) throw new IllegalArgumentException("bound must be positive");
+
+		int mask = bound - 1;
+		int r = nextInt() >>> 1;
+
+		// powers of two just take the low bits
+		if((bound & mask) == 0) return r & mask;
+
+		// reject values from the incomplete range at the top to avoid bias
+		for(int u = r; u - (r = u % bound) + mask < 0; u = nextInt() >>> 1);
+		return r;
+	}
+
+	/**
+	 * Gets a pseudo-random float between 0 (inclusive) and 1 (exclusive).
+	 * @return Random value.
+	 */
+	public float nextFloat() {
+		return (nextInt() >>> 8) * FLOAT_UNIT;
+	}
+
+	/**
+	 * Gets a pseudo-random double between 0 (inclusive) and 1 (exclusive).
+	 * @return Random value.
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	/**
+	 * Gets a pseudo-random boolean.
+	 * @return Random value.
+	 */
+	public boolean nextBoolean() {
+		return nextLong() < 0L;
+	}
+
+	/**
+	 * Gets a pseudo-random double from the standard normal distribution (mean 0, standard deviation 1).
+	 * Uses the polar method, which generates values in pairs.
+	 * @return Random value.
+	 */
+	public double nextGaussian() {
+		if(hasNextGaussian) {
+			hasNextGaussian = false;
+			return nextGaussian;
+		}
+
+		double x, y, s;
+		do {
+			x = 2d * nextDouble() - 1d;
+			y = 2d * nextDouble() - 1d;
+			s = x * x + y * y;
+		} while(s >= 1d || s == 0d);
+
+		double multiplier = Math.sqrt(-2d * Math.log(s) / s);
+		nextGaussian = y * multiplier;
+		hasNextGaussian = true;
+		return x * multiplier;
+	}
+
+	/**
+	 * Scrambles the bits of a value (the finaliser from MurmurHash3 with better constants).
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -7,11 +7,13 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.badlogic.gdx.utils.viewport.Viewport;
 
 public abstract class Screen implements com.badlogic.gdx.Screen {
 	
 	private static final int CLEAR_MASK = GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT;
+	private static final float NANOS_PER_SECOND = 1000000000f;
 	
 	private final Game game;
 	private final Viewport viewport;
@@ -21,6 +23,19 @@ public abstract class Screen implements com.badlogic.gdx.Screen {
 	private boolean isDisposed = false;
 	
 	private Vector2 touch = new Vector2();
+	private TouchQueue touchQueue = null;
+	
+	// fixed time step mode is off while the time step is zero
+	private float timeStep = 0f;
+	private int maxStepsPerFrame = 1;
+	private float accumulator = 0f;
+	private float interpolationAlpha = 1f;
+	
+	// times that the current frame started and that the current update runs up to
+	private long frameTime;
+	private long updateEndTime;
+	
+	private FrameGovernor governor = null;
 	
 	/**
 	 * Creates a new screen.
@@ -52,13 +67,31 @@ public abstract class Screen implements com.badlogic.gdx.Screen {
 	public void render(float elapsedTime) {
 		
 		// update model
-		update(elapsedTime);
+		frameTime = TimeUtils.nanoTime();
+		if(timeStep > 0f) updateFixed(elapsedTime);
+		else {
+			updateEndTime = frameTime;
+			update(elapsedTime);
+		}
+		
+		long drawStart = TimeUtils.nanoTime();
 		
 		if(!isDisposed) { // do not draw if dispose is called during update()
 			// Render
 			Gdx.gl.glClear(CLEAR_MASK);
 			draw(elapsedTime);
 		}
+		
+		if(governor != null) {
+			long drawEnd = TimeUtils.nanoTime();
+			governor.recordDraw(drawEnd - drawStart);
+			
+			// a concurrent governor is ended by whatever updates the model on the other thread
+			if(!governor.isConcurrent()) {
+				governor.recordUpdate(drawStart - frameTime);
+				governor.endFrame();
+			}
+		}
 	}
 
 	@Override
@@ -89,6 +122,61 @@ public abstract class Screen implements com.badlogic.gdx.Screen {
 		this.isTouchInputHandled = handle;
 	}
 	
+	/**
+	 * Makes this screen update its model in steps of a fixed size rather than once per frame.
+	 * Each frame runs as many whole steps as have built up since the last frame, carrying over any remainder.
+	 * Use {@link #getInterpolationAlpha()} while drawing to show the model part way between its last two steps.
+	 * @param timeStep Duration of each update in seconds, or 0 to go back to a single update per frame.
+	 * @param maxStepsPerFrame Most updates to run in one frame. Time that is still left after that many steps
+	 * is dropped, so that a device too slow to keep up slows the game down instead of falling further behind.
+	 */
+	protected void setFixedTimeStep(float timeStep, int maxStepsPerFrame) {
+		if(timeStep < 0f) throw new IllegalArgumentException("time step must not be negative");
+		if(maxStepsPerFrame <= 0) throw new IllegalArgumentException("maximum steps per frame must be positive");
+		
+		this.timeStep = timeStep;
+		this.maxStepsPerFrame = maxStepsPerFrame;
+		accumulator = 0f;
+		interpolationAlpha = 1f;
+	}
+	
+	/**
+	 * Gets how far the time drawn is between the last two fixed steps.
+	 * @return Fraction from 0, for the step before last, to 1, for the last step.
+	 * Always 1 when not using a fixed time step.
+	 * @see #setFixedTimeStep(float, int)
+	 */
+	protected float getInterpolationAlpha() {
+		return interpolationAlpha;
+	}
+	
+	/**
+	 * Gets the time that the model will have reached at the end of the current update.
+	 * This is the start of the frame, less any time carried over to the next frame when using a fixed time step.
+	 * @return Time in nanoseconds, on the same clock as {@link TimeUtils#nanoTime()}.
+	 */
+	protected long getUpdateEndTime() {
+		return updateEndTime;
+	}
+	
+	/**
+	 * Sets a queue for touches to be added to, with the time they happened, instead of calling {@link #onTouch(float, float)}.
+	 * Touches are added on the render thread so they can be taken by whichever single thread updates the model.
+	 * @param touchQueue Queue, or null to call {@link #onTouch(float, float)} again.
+	 */
+	protected void setTouchQueue(TouchQueue touchQueue) {
+		this.touchQueue = touchQueue;
+	}
+	
+	/**
+	 * Sets a governor to be told how long each frame takes to update and draw.
+	 * Unless the governor is concurrent, it is ended after every frame so its actions run on the render thread.
+	 * @param governor Governor, or null to stop timing frames.
+	 */
+	protected void setFrameGovernor(FrameGovernor governor) {
+		this.governor = governor;
+	}
+	
 	/**
 	 * Gets the game that this screen is part of.
 	 * @return
@@ -134,6 +222,26 @@ public abstract class Screen implements com.badlogic.gdx.Screen {
 	 */
 	protected abstract void draw(float elapsed);
 	
+	/**
+	 * Runs all the fixed steps that are due by the end of a frame.
+	 * @param elapsedTime Time in seconds since the last frame.
+	 */
+	private void updateFixed(float elapsedTime) {
+		accumulator += elapsedTime;
+		
+		for(int steps = 0; accumulator >= timeStep && steps < maxStepsPerFrame && !isDisposed; steps++) {
+			updateEndTime = frameTime - (long)((accumulator - timeStep) * NANOS_PER_SECOND);
+			update(timeStep);
+			accumulator -= timeStep;
+		}
+		
+		// too far behind to catch up - drop whole steps but keep the part of a step that is in progress
+		if(accumulator >= timeStep) accumulator %= timeStep;
+		
+		// what is drawn lags the model by up to a step, so that it is always between two real states
+		interpolationAlpha = accumulator / timeStep;
+	}
+	
 	/**
 	 * Event raised when the user has touched/clicked on the screen at the specified coordinates.
 	 * This will only be called if this screen is configured to handle touch input (which is the
@@ -160,7 +268,12 @@ public abstract class Screen implements com.badlogic.gdx.Screen {
 			touch.set(screenX, screenY);
 			viewport.unproject(touch);
 			
-			onTouch(touch.x, touch.y);
+			if(touchQueue == null) onTouch(touch.x, touch.y);
+			else {
+				// backends that do not time events give 0
+				long time = Gdx.input.getCurrentEventTime();
+				touchQueue.add(touch.x, touch.y, time == 0L ? TimeUtils.nanoTime() : time);
+			}
 			return true;
 		}
 	}
@@ -0,0 +1,15 @@
+package com.supergreenowl.sgdx;
+
+/**
+ * Runs every task on the calling thread in index order.
+ * This works on every platform and is the reference that parallel runners must give the same results as.
+ * @author Luke
+ *
+ */
+public class SequentialTaskRunner implements TaskRunner {
+
+	@Override
+	public void run(int count, Task task) {
+		for(int i = 0; i < count; i++) task.run(i);
+	}
+}
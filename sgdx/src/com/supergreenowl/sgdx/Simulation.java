@@ -0,0 +1,27 @@
+package com.supergreenowl.sgdx;
+
+/**
+ * A model that is advanced in fixed steps and drawn from snapshots of its state,
+ * so that it can be run on a different thread to the one drawing it.
+ * @author Luke
+ * @see SimulationThread
+ *
+ * @param <S> Type of snapshot.
+ */
+public interface Simulation<S> {
+
+	/**
+	 * Advances the model.
+	 * @param timeStep Time in seconds to advance by.
+	 * @param endTime Time in nanoseconds that the model reaches at the end of the step, on the same clock as
+	 * {@link System#nanoTime()}. Input timestamped up to this time can be applied during the step.
+	 */
+	void step(float timeStep, long endTime);
+
+	/**
+	 * Writes the current state of the model to a snapshot. The snapshot is only ever written by this method
+	 * and may hold the state of an earlier step, so everything in it must be overwritten.
+	 * @param snapshot Snapshot to write.
+	 */
+	void write(S snapshot);
+}
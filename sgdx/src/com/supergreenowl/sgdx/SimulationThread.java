@@ -0,0 +1,155 @@
+package com.supergreenowl.sgdx;
+
+/**
+ * Runs a {@link Simulation} in fixed steps on its own thread and publishes a snapshot after every batch of steps.
+ * <p>Snapshots are passed to the drawing thread through a {@link TripleBuffer}, so the drawing thread always
+ * gets the latest complete snapshot without waiting and a slow step never holds up a frame. The simulation
+ * itself must only be touched by the simulation thread while this is running.
+ * <p>Steps are timed against the system clock. When the simulation falls behind, up to a maximum number of
+ * steps are run back to back to catch up; any more time than that is dropped so the simulation slows down
+ * instead of falling further behind.
+ * @author Luke
+ *
+ * @param <S> Type of snapshot.
+ */
+public class SimulationThread<S> implements Runnable {
+
+	private static final long NANOS_PER_SECOND = 1000000000L;
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	private final Simulation<S> simulation;
+	private final TripleBuffer<S> snapshots;
+	private final float timeStep;
+	private final long stepNanos;
+	private final int maxCatchUpSteps;
+
+	private FrameGovernor governor = null;
+	
+	private Thread thread = null;
+	private volatile boolean isRunning = false;
+	private volatile RuntimeException failure = null;
+
+	/**
+	 * Creates a new simulation thread. The thread is not started until {@link #start()} is called.
+	 * @param simulation Simulation to run.
+	 * @param first Snapshot buffer.
+	 * @param second Snapshot buffer.
+	 * @param third Snapshot buffer.
+	 * @param timeStep Duration of each step in seconds.
+	 * @param maxCatchUpSteps Most steps to run back to back when the simulation is behind.
+	 */
+	public SimulationThread(Simulation<S> simulation, S first, S second, S third, float timeStep, int maxCatchUpSteps) {
+		if(simulation == null) throw new IllegalArgumentException("simulation must not be null");
+		if(timeStep <= 0f) throw new IllegalArgumentException("time step must be positive");
+		if(maxCatchUpSteps <= 0) throw new IllegalArgumentException("maximum catch up steps must be positive");
+
+		this.simulation = simulation;
+		this.snapshots = new TripleBuffer<S>(first, second, third);
+		this.timeStep = timeStep;
+		this.stepNanos = (long)(timeStep * NANOS_PER_SECOND);
+		this.maxCatchUpSteps = maxCatchUpSteps;
+	}
+
+	/**
+	 * Sets a governor to be told how long each batch of steps takes. The governor is ended after every batch,
+	 * so its actions run on the simulation thread. Must not be called while the simulation is running.
+	 * @param governor Governor, or null to stop timing steps.
+	 */
+	public void setFrameGovernor(FrameGovernor governor) {
+		this.governor = governor;
+	}
+	
+	/**
+	 * Starts running the simulation. Does nothing if it is already running.
+	 * A snapshot of the current state is published first so there is always something to draw.
+	 */
+	public synchronized void start() {
+		if(thread != null) return;
+
+		// the thread has not started yet so this thread can write for it
+		simulation.write(snapshots.getWriteBuffer());
+		snapshots.publish();
+
+		isRunning = true;
+		thread = new Thread(this, "simulation");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops running the simulation and waits for the current step to finish.
+	 * Once this returns the simulation can be used by the calling thread. Does nothing if it is not running.
+	 */
+	public synchronized void stop() {
+		if(thread == null) return;
+
+		isRunning = false;
+		thread.interrupt();
+
+		boolean isInterrupted = false;
+		while(true) {
+			try {
+				thread.join();
+				break;
+			}
+			catch(InterruptedException e) {
+				isInterrupted = true;
+			}
+		}
+
+		thread = null;
+		if(isInterrupted) Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Gets the latest snapshot published by the simulation. Must only be called from a single thread.
+	 * The snapshot does not change until this is next called.
+	 * @return Snapshot.
+	 * @throws IllegalStateException If the simulation has thrown an exception.
+	 */
+	public S getSnapshot() {
+		if(failure != null) throw new IllegalStateException("simulation failed", failure);
+		return snapshots.getReadBuffer();
+	}
+
+	@Override
+	public void run() {
+		long next = System.nanoTime();
+
+		try {
+			while(isRunning) {
+				long wait = next - System.nanoTime();
+				if(wait > 0L) {
+					Thread.sleep(wait / NANOS_PER_MILLI, (int)(wait % NANOS_PER_MILLI));
+					continue;
+				}
+
+				long batchStart = System.nanoTime();
+				int steps = 0;
+				do {
+					simulation.step(timeStep, next);
+					next += stepNanos;
+					steps++;
+				} while(steps < maxCatchUpSteps && next - System.nanoTime() <= 0L && isRunning);
+
+				// too far behind to catch up - drop whole steps but keep the part of a step that is in progress
+				long behind = System.nanoTime() - next;
+				if(behind >= 0L) next += (behind / stepNanos + 1L) * stepNanos;
+
+				if(governor != null) {
+					governor.recordUpdate(System.nanoTime() - batchStart);
+					governor.endFrame();
+				}
+				
+				simulation.write(snapshots.getWriteBuffer());
+				snapshots.publish();
+			}
+		}
+		catch(InterruptedException e) {
+			// stopped while waiting for the next step
+		}
+		catch(RuntimeException e) {
+			failure = e;
+		}
+	}
+}
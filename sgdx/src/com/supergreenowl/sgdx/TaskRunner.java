@@ -0,0 +1,33 @@
+package com.supergreenowl.sgdx;
+
+/**
+ * Runs a batch of independent tasks, possibly in parallel.
+ * <p>Tasks in a batch may run in any order and on any thread, so a task must not depend on any other task
+ * in the batch and must only write to state that belongs to its own index. {@link #run(int, Task)} does not
+ * return until every task has finished, and everything the tasks wrote is visible to the caller when it does.
+ * @author Luke
+ * @see SequentialTaskRunner
+ */
+public interface TaskRunner {
+
+	/**
+	 * Runs a task once for every index from 0 (inclusive) to a count (exclusive) and waits for them all to finish.
+	 * @param count Number of times to run the task.
+	 * @param task Task to run.
+	 */
+	void run(int count, Task task);
+
+	/**
+	 * A task that is run once for each index in a batch.
+	 * @author Luke
+	 *
+	 */
+	public interface Task {
+
+		/**
+		 * Runs this task for a single index.
+		 * @param index Index within the batch.
+		 */
+		void run(int index);
+	}
+}
@@ -0,0 +1,336 @@
+package com.supergreenowl.sgdx;
+
+/**
+ * Calls back at scheduled game times without checking every pending timer on every tick.
+ * <p>Game time is divided into slots of a fixed resolution. Timers due within the next few slots sit in
+ * a wheel of slots that is walked one slot at a time; timers further ahead sit in coarser wheels and are
+ * moved down a level each time the finer wheel below has gone all the way round, so advancing by a slot
+ * costs the same however many timers are pending. Timers more than four levels ahead wait in an overflow list.
+ * <p>Timers are nodes in parallel arrays, linked into slots by index, so scheduling does not allocate
+ * unless more timers are pending than ever before. Timers are identified by handles that include a generation,
+ * so cancelling a timer that has already fired does nothing even if its node has been reused.
+ * <p>A timer fires on the first advance to a time at or after its own. Timers due in the same slot fire
+ * in the order they were scheduled. Callbacks may schedule and cancel timers, including at times already
+ * reached, which fire before the advance returns.
+ * @author Luke
+ * @see GameClock#setTimers(TimerWheel)
+ */
+public class TimerWheel implements Resettable {
+
+	/**
+	 * Handle value for no timer.
+	 */
+	public static final int NONE = -1;
+
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+	private static final int LEVELS = 4;
+
+	// lists after the slots of the wheels
+	private static final int OVERFLOW = LEVELS * SLOTS;
+	private static final int HOLDING = OVERFLOW + 1;
+	private static final int FREE = HOLDING + 1;
+	private static final int LISTS = FREE + 1;
+
+	// handles are the node index with a generation above it
+	private static final int INDEX_BITS = 20;
+	private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+	private static final int GENERATION_MASK = (1 << (31 - INDEX_BITS)) - 1;
+
+	private final float resolution;
+
+	private final int[] heads = newLists();
+	private final int[] tails = newLists();
+
+	// data by node
+	private float[] times;
+	private long[] slotTimes;
+	private Callback[] callbacks;
+	private int[] next, previous, lists, generations;
+	private int nodeCount = 0;
+	private int size = 0;
+
+	// every slot before this one has fired
+	private long currentSlot = 0L;
+
+	/**
+	 * Creates a new timer wheel starting at time 0.
+	 * @param resolution Duration of each slot in seconds. Timers in the same slot fire in the order they were scheduled.
+	 * @param capacity Number of pending timers to allocate space for up front.
+	 */
+	public TimerWheel(float resolution, int capacity) {
+		if(resolution <= 0f) throw new IllegalArgumentException("resolution must be positive");
+		if(capacity <= 0 || capacity > INDEX_MASK + 1) throw new IllegalArgumentException("capacity out of range");
+
+		this.resolution = resolution;
+		times = new float[capacity];
+		slotTimes = new long[capacity];
+		callbacks = new Callback[capacity];
+		next = new int[capacity];
+		previous = new int[capacity];
+		lists = new int[capacity];
+		generations = new int[capacity];
+	}
+
+	/**
+	 * Gets the number of timers waiting to fire.
+	 * @return Number of timers.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Schedules a callback.
+	 * @param time Game time in seconds to call back at. Times already reached fire on the next advance.
+	 * @param callback Callback.
+	 * @return Handle of the timer.
+	 */
+	public int schedule(float time, Callback callback) {
+		if(callback == null) throw new IllegalArgumentException("callback must not be null");
+
+		int node = obtainNode();
+		times[node] = time;
+		slotTimes[node] = Math.max(toSlot(time), currentSlot);
+		callbacks[node] = callback;
+		size++;
+
+		insert(node);
+		return (generations[node] << INDEX_BITS) | node;
+	}
+
+	/**
+	 * Cancels a timer. Does nothing if the timer has already fired or been cancelled.
+	 * @param handle Handle of the timer, or {@link #NONE}.
+	 * @return True if the timer was cancelled, false if it was not pending.
+	 */
+	public boolean cancel(int handle) {
+		if(!isPending(handle)) return false;
+
+		int node = handle & INDEX_MASK;
+		unlink(node);
+		freeNode(node);
+		size--;
+		return true;
+	}
+
+	/**
+	 * Determines if a timer has yet to fire.
+	 * @param handle Handle of the timer, or {@link #NONE}.
+	 * @return True if the timer is pending.
+	 */
+	public boolean isPending(int handle) {
+		if(handle < 0) return false;
+
+		int node = handle & INDEX_MASK;
+		return node < nodeCount && lists[node] != FREE && generations[node] == handle >>> INDEX_BITS;
+	}
+
+	/**
+	 * Fires every timer due at or before a time.
+	 * @param time Game time in seconds. Must not go backwards.
+	 */
+	public void advance(float time) {
+		long target = toSlot(time);
+
+		// every timer in a slot before the target is due
+		while(currentSlot < target) {
+			fireSlot(currentSlot & SLOT_MASK, time);
+			currentSlot++;
+			if((currentSlot & SLOT_MASK) == 0L) cascade();
+		}
+
+		fireSlot(currentSlot & SLOT_MASK, time);
+	}
+
+	/**
+	 * Cancels every pending timer and goes back to time 0.
+	 */
+	@Override
+	public void reset() {
+		for(int list = 0; list < FREE; list++) {
+			while(heads[list] != NONE) {
+				int node = heads[list];
+				unlink(node);
+				freeNode(node);
+			}
+		}
+
+		size = 0;
+		currentSlot = 0L;
+	}
+
+	private long toSlot(float time) {
+		return (long)Math.floor(time / resolution);
+	}
+
+	/**
+	 * Fires the due timers in a slot of the finest wheel, keeping any that are not due yet in the slot.
+	 */
+	private void fireSlot(long slot, float time) {
+		int list = (int)slot;
+
+		// take one node at a time so callbacks can change the slot
+		while(heads[list] != NONE) {
+			int node = heads[list];
+			unlink(node);
+
+			if(times[node] > time) append(HOLDING, node);
+			else {
+				Callback callback = callbacks[node];
+				float due = times[node];
+				freeNode(node);
+				size--;
+				callback.onTimer(due);
+			}
+		}
+
+		while(heads[HOLDING] != NONE) {
+			int node = heads[HOLDING];
+			unlink(node);
+			append(list, node);
+		}
+	}
+
+	/**
+	 * Moves timers down from the coarser wheels once the finer wheels have gone all the way round.
+	 */
+	private void cascade() {
+		for(int level = 1; level < LEVELS; level++) {
+			int index = (int)(currentSlot >>> (SLOT_BITS * level)) & SLOT_MASK;
+			reinsert(level * SLOTS + index);
+
+			// the next level only turns when this one has gone round
+			if(index != 0) return;
+		}
+
+		reinsert(OVERFLOW);
+	}
+
+	private void reinsert(int list) {
+		int node = heads[list];
+		heads[list] = NONE;
+		tails[list] = NONE;
+
+		while(node != NONE) {
+			int following = next[node];
+			insert(node);
+			node = following;
+		}
+	}
+
+	/**
+	 * Adds a node to the slot for its time, in the finest wheel that has a slot just for that time.
+	 */
+	private void insert(int node) {
+		long slot = slotTimes[node];
+
+		for(int level = 0; level < LEVELS; level++) {
+			int shift = SLOT_BITS * (level + 1);
+			if((slot >>> shift) == (currentSlot >>> shift)) {
+				append(level * SLOTS + ((int)(slot >>> (SLOT_BITS * level)) & SLOT_MASK), node);
+				return;
+			}
+		}
+
+		append(OVERFLOW, node);
+	}
+
+	private void append(int list, int node) {
+		int tail = tails[list];
+
+		lists[node] = list;
+		previous[node] = tail;
+		next[node] = NONE;
+
+		if(tail == NONE) heads[list] = node;
+		else next[tail] = node;
+		tails[list] = node;
+	}
+
+	private void unlink(int node) {
+		int list = lists[node];
+		int before = previous[node], after = next[node];
+
+		if(before == NONE) heads[list] = after;
+		else next[before] = after;
+
+		if(after == NONE) tails[list] = before;
+		else previous[after] = before;
+	}
+
+	private int obtainNode() {
+		int node = heads[FREE];
+		if(node != NONE) {
+			unlink(node);
+			return node;
+		}
+
+		if(nodeCount == times.length) grow();
+		return nodeCount++;
+	}
+
+	private void freeNode(int node) {
+		callbacks[node] = null;
+		generations[node] = (generations[node] + 1) & GENERATION_MASK;
+		append(FREE, node);
+	}
+
+	private void grow() {
+		int capacity = Math.min(times.length * 2, INDEX_MASK + 1);
+		if(capacity == times.length) throw new IllegalStateException("too many timers");
+
+		times = copyOf(times, capacity);
+		slotTimes = copyOf(slotTimes, capacity);
+		callbacks = copyOf(callbacks, capacity);
+		next = copyOf(next, capacity);
+		previous = copyOf(previous, capacity);
+		lists = copyOf(lists, capacity);
+		generations = copyOf(generations, capacity);
+	}
+
+	private static int[] newLists() {
+		int[] heads = new int[LISTS];
+		for(int i = 0; i < LISTS; i++) heads[i] = NONE;
+		return heads;
+	}
+
+	private static float[] copyOf(float[] a, int length) {
+		float[] copy = new float[length];
+		System.arraycopy(a, 0, copy, 0, a.length);
+		return copy;
+	}
+
+	private static long[] copyOf(long[] a, int length) {
+		long[] copy = new long[length];
+		System.arraycopy(a, 0, copy, 0, a.length);
+		return copy;
+	}
+
+	private static int[] copyOf(int[] a, int length) {
+		int[] copy = new int[length];
+		System.arraycopy(a, 0, copy, 0, a.length);
+		return copy;
+	}
+
+	private static Callback[] copyOf(Callback[] a, int length) {
+		Callback[] copy = new Callback[length];
+		System.arraycopy(a, 0, copy, 0, a.length);
+		return copy;
+	}
+
+	/**
+	 * Called back when a timer fires.
+	 * @author Luke
+	 *
+	 */
+	public interface Callback {
+
+		/**
+		 * Called when a timer fires.
+		 * @param time Game time that the timer was scheduled for, which may be before the current time.
+		 */
+		void onTimer(float time);
+	}
+}
@@ -0,0 +1,125 @@
+package com.supergreenowl.sgdx;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed size queue of timestamped touches, passed from the thread that receives input to the thread
+ * that updates the model without either thread waiting or allocating.
+ * <p>The queue is a ring buffer of parallel arrays. The producer only moves the tail and the consumer only moves
+ * the head, so there is no locking, but only one thread may add touches and only one thread may take them.
+ * Touches added to a full queue are dropped.
+ * @author Luke
+ *
+ */
+public class TouchQueue {
+
+	private final int mask;
+	private final long[] times;
+	private final float[] xs, ys;
+
+	// count of touches ever taken and ever added - the queue holds tail - head touches
+	private final AtomicInteger head = new AtomicInteger(0);
+	private final AtomicInteger tail = new AtomicInteger(0);
+
+	/**
+	 * Creates a new queue.
+	 * @param capacity Most touches the queue can hold. Must be a power of two.
+	 */
+	public TouchQueue(int capacity) {
+		if(capacity <= 0 || (capacity & (capacity - 1)) != 0)
+			throw new IllegalArgumentException("capacity must be a power of two");
+
+		mask = capacity - 1;
+		times = new long[capacity];
+		xs = new float[capacity];
+		ys = new float[capacity];
+	}
+
+	/**
+	 * Adds a touch to the end of this queue. Only call this from the producing thread.
+	 * @param x x coordinate of the touch.
+	 * @param y y coordinate of the touch.
+	 * @param time Time of the touch in nanoseconds, on the same clock as {@link System#nanoTime()}.
+	 * @return True if the touch was added, false if the queue was full.
+	 */
+	public boolean add(float x, float y, long time) {
+		int t = tail.get();
+		if(t - head.get() > mask) return false;
+
+		int i = t & mask;
+		times[i] = time;
+		xs[i] = x;
+		ys[i] = y;
+
+		// publishes the touch - the consumer reads the tail before reading the arrays
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/**
+	 * Determines if the touch at the front of this queue happened no later than a time.
+	 * Only call this from the consuming thread.
+	 * @param time Time in nanoseconds.
+	 * @return True if there is a touch at or before the time.
+	 */
+	public boolean hasTouchBy(long time) {
+		int h = head.get();
+		return h != tail.get() && times[h & mask] - time <= 0L;
+	}
+
+	/**
+	 * Determines if this queue is empty. Only call this from the consuming thread.
+	 * @return True if there are no touches to take.
+	 */
+	public boolean isEmpty() {
+		return head.get() == tail.get();
+	}
+
+	/**
+	 * Gets the time of the touch at the front of this queue. Only call this from the consuming thread.
+	 * @return Time in nanoseconds.
+	 */
+	public long getTime() {
+		return times[front()];
+	}
+
+	/**
+	 * Gets the x coordinate of the touch at the front of this queue. Only call this from the consuming thread.
+	 * @return x coordinate.
+	 */
+	public float getX() {
+		return xs[front()];
+	}
+
+	/**
+	 * Gets the y coordinate of the touch at the front of this queue. Only call this from the consuming thread.
+	 * @return y coordinate.
+	 */
+	public float getY() {
+		return ys[front()];
+	}
+
+	/**
+	 * Removes the touch at the front of this queue. Only call this from the consuming thread.
+	 */
+	public void remove() {
+		int h = head.get();
+		if(h == tail.get()) throw new IllegalStateException("queue is empty");
+
+		// frees the slot - the producer reads the head before writing the arrays
+		head.lazySet(h + 1);
+	}
+
+	/**
+	 * Removes every touch from this queue. Only call this from the consuming thread.
+	 */
+	public void clear() {
+		head.lazySet(tail.get());
+	}
+
+	private int front() {
+		int h = head.get();
+		if(h == tail.get()) throw new IllegalStateException("queue is empty");
+		return h & mask;
+	}
+}
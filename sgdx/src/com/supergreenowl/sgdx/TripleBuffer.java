@@ -0,0 +1,70 @@
+package com.supergreenowl.sgdx;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Passes the latest of a series of values from one thread to another without either thread ever waiting.
+ * <p>There are three buffers: one being written, one being read and one in the middle holding the latest
+ * complete value. Publishing swaps the written buffer with the middle one and reading swaps the read buffer
+ * with the middle one if it has been published since the last read, so the two threads never touch the same buffer.
+ * Values that are published faster than they are read are skipped.
+ * <p>Only one thread may write and only one thread may read.
+ * @author Luke
+ *
+ * @param <T> Type of buffer.
+ */
+public class TripleBuffer<T> {
+
+	// the middle buffer's index is kept with a flag that is set when it has been published but not read
+	private static final int INDEX_MASK = 3;
+	private static final int FRESH = 4;
+
+	private final Object[] buffers;
+	private final AtomicInteger middle = new AtomicInteger(1);
+
+	// owned by the writing thread and reading thread respectively
+	private int writeIndex = 0;
+	private int readIndex = 2;
+
+	/**
+	 * Creates a new triple buffer. The three buffers must be distinct.
+	 * The third buffer is read until the first value is published.
+	 * @param first Buffer.
+	 * @param second Buffer.
+	 * @param third Buffer.
+	 */
+	public TripleBuffer(T first, T second, T third) {
+		if(first == null || second == null || third == null) throw new IllegalArgumentException("buffers must not be null");
+		if(first == second || second == third || first == third) throw new IllegalArgumentException("buffers must be distinct");
+
+		buffers = new Object[] { first, second, third };
+	}
+
+	/**
+	 * Gets the buffer to write the next value into. Only call this from the writing thread.
+	 * @return Buffer to write.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getWriteBuffer() {
+		return (T)buffers[writeIndex];
+	}
+
+	/**
+	 * Publishes the value in the write buffer so that it is the next one read, and moves on to another buffer to write.
+	 * Only call this from the writing thread.
+	 */
+	public void publish() {
+		writeIndex = middle.getAndSet(writeIndex | FRESH) & INDEX_MASK;
+	}
+
+	/**
+	 * Gets the buffer holding the latest published value. Only call this from the reading thread.
+	 * The buffer is not changed until the next time this is called.
+	 * @return Buffer to read.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getReadBuffer() {
+		if((middle.get() & FRESH) != 0) readIndex = middle.getAndSet(readIndex) & INDEX_MASK;
+		return (T)buffers[readIndex];
+	}
+}
@@ -0,0 +1,144 @@
+package com.supergreenowl.slugs.headless;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import com.supergreenowl.slugs.model.World.GameOverReason;
+
+/**
+ * Aggregated results of a batch of simulated games.
+ * Reports for parts of a batch can be merged into a report for the whole batch.
+ * @author Luke
+ *
+ */
+public class BatchReport {
+
+	private static final GameOverReason[] REASONS = GameOverReason.values();
+
+	private float[] survivalTimes = new float[64];
+	private int games = 0;
+	private double simulatedTime = 0d;
+
+	private final int[] reasonCounts = new int[REASONS.length];
+	private int[] levelCounts = new int[8];
+
+	/**
+	 * Adds the result of a game to this report.
+	 * @param result Game result.
+	 */
+	public void add(GameResult result) {
+		if(games == survivalTimes.length) survivalTimes = Arrays.copyOf(survivalTimes, games * 2);
+		survivalTimes[games++] = result.getSurvivalTime();
+		simulatedTime += result.getSurvivalTime();
+
+		reasonCounts[result.getReason().ordinal()]++;
+
+		int level = result.getLevel();
+		if(level >= levelCounts.length) levelCounts = Arrays.copyOf(levelCounts, Math.max(level + 1, levelCounts.length * 2));
+		levelCounts[level]++;
+	}
+
+	/**
+	 * Adds all the results in another report to this report.
+	 * @param other Report to merge in.
+	 */
+	public void add(BatchReport other) {
+		if(games + other.games > survivalTimes.length)
+			survivalTimes = Arrays.copyOf(survivalTimes, Math.max(games + other.games, survivalTimes.length * 2));
+		System.arraycopy(other.survivalTimes, 0, survivalTimes, games, other.games);
+		games += other.games;
+		simulatedTime += other.simulatedTime;
+
+		for(int i = 0; i < reasonCounts.length; i++) reasonCounts[i] += other.reasonCounts[i];
+
+		if(other.levelCounts.length > levelCounts.length) levelCounts = Arrays.copyOf(levelCounts, other.levelCounts.length);
+		for(int i = 0; i < other.levelCounts.length; i++) levelCounts[i] += other.levelCounts[i];
+	}
+
+	/**
+	 * Gets the number of games in this report.
+	 * @return Number of games.
+	 */
+	public int getGames() {
+		return games;
+	}
+
+	/**
+	 * Gets the total game time simulated over all games.
+	 * @return Time in seconds.
+	 */
+	public double getSimulatedTime() {
+		return simulatedTime;
+	}
+
+	/**
+	 * Gets the mean time survived.
+	 * @return Time in seconds or 0 if there are no games.
+	 */
+	public double getMeanSurvivalTime() {
+		return games == 0 ? 0d : simulatedTime / games;
+	}
+
+	/**
+	 * Gets a percentile of the times survived, using the nearest rank.
+	 * @param percentile Percentile from 0 to 100.
+	 * @return Time in seconds or 0 if there are no games.
+	 */
+	public float getSurvivalTimePercentile(float percentile) {
+		if(games == 0) return 0f;
+
+		float[] sorted = Arrays.copyOf(survivalTimes, games);
+		Arrays.sort(sorted);
+
+		int rank = (int)Math.ceil(percentile / 100f * games);
+		return sorted[Math.min(games - 1, Math.max(0, rank - 1))];
+	}
+
+	/**
+	 * Gets the number of games that ended for a reason.
+	 * @param reason Reason the game ended; {@link GameOverReason#NONE} for games stopped at the time limit.
+	 * @return Number of games.
+	 */
+	public int getReasonCount(GameOverReason reason) {
+		return reasonCounts[reason.ordinal()];
+	}
+
+	/**
+	 * Gets the number of games that reached a level and went no further.
+	 * @param level Level.
+	 * @return Number of games.
+	 */
+	public int getLevelCount(int level) {
+		return level < levelCounts.length ? levelCounts[level] : 0;
+	}
+
+	/**
+	 * Writes this report in a human readable form.
+	 * @param out Stream to write to.
+	 */
+	public void print(PrintStream out) {
+		out.println("games: " + games);
+		out.println("simulated time: " + String.format("%.0f", simulatedTime) + "s");
+
+		out.println("survival time: mean " + String.format("%.2f", getMeanSurvivalTime()) + "s"
+				+ ", p10 " + String.format("%.2f", getSurvivalTimePercentile(10f)) + "s"
+				+ ", median " + String.format("%.2f", getSurvivalTimePercentile(50f)) + "s"
+				+ ", p90 " + String.format("%.2f", getSurvivalTimePercentile(90f)) + "s"
+				+ ", max " + String.format("%.2f", getSurvivalTimePercentile(100f)) + "s");
+
+		out.println("game over reasons:");
+		for(GameOverReason reason : REASONS) {
+			out.println("  " + reason + ": " + reasonCounts[reason.ordinal()] + " (" + formatShare(reasonCounts[reason.ordinal()]) + ")");
+		}
+
+		out.println("levels reached:");
+		for(int level = 0; level < levelCounts.length; level++) {
+			if(levelCounts[level] == 0) continue;
+			out.println("  " + level + ": " + levelCounts[level] + " (" + formatShare(levelCounts[level]) + ")");
+		}
+	}
+
+	private String formatShare(int count) {
+		return String.format("%.1f%%", games == 0 ? 0f : 100f * count / games);
+	}
+}
@@ -0,0 +1,120 @@
+package com.supergreenowl.slugs.headless;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.supergreenowl.sgdx.RandomSource;
+import com.supergreenowl.slugs.model.World;
+
+/**
+ * Runs many independent games with no graphics, spread over all available cores.
+ * <p>Each game has its own {@link World} stepped with a fixed time step until the game ends
+ * or a time limit is reached, with the runner steered by a {@link RunnerPilot}.
+ * Games share no mutable state so they run in parallel on a {@link ForkJoinPool}. The batch is split
+ * in half recursively until each task has only a few games left to run.
+ * <p>Every game is seeded from the seed of the batch, so a batch gives the same report for the same seed
+ * however many threads run it and any single game can be replayed from its own seed.
+ * @author Luke
+ *
+ */
+public class BatchSimulator {
+
+	/**
+	 * Size of the world used by the game.
+	 */
+	public static final float WORLD_WIDTH = 240f, WORLD_HEIGHT = 400f;
+
+	// games run by a single task before it stops splitting
+	private static final int GAMES_PER_TASK = 4;
+
+	private final float timeStep;
+	private final float timeLimit;
+
+	/**
+	 * Creates a new simulator.
+	 * @param timeStep Duration of each update in seconds.
+	 * @param timeLimit Longest game time to simulate for each game, in seconds.
+	 */
+	public BatchSimulator(float timeStep, float timeLimit) {
+		if(timeStep <= 0f) throw new IllegalArgumentException("time step must be positive");
+		if(timeLimit <= 0f) throw new IllegalArgumentException("time limit must be positive");
+
+		this.timeStep = timeStep;
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * Simulates a batch of games.
+	 * @param games Number of games to simulate.
+	 * @param parallelism Number of threads to use.
+	 * @param seed Seed for the batch.
+	 * @return Report of all the games.
+	 */
+	public BatchReport run(int games, int parallelism, long seed) {
+		RandomSource random = new RandomSource(seed);
+		long[] seeds = new long[games];
+		for(int i = 0; i < games; i++) seeds[i] = random.nextLong();
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+		try {
+			return pool.invoke(new SimulateTask(seeds, 0, games));
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Simulates a single game on the calling thread.
+	 * @param seed Seed for the game's world.
+	 * @return Result of the game.
+	 */
+	public GameResult simulate(long seed) {
+		World world = new World(WORLD_WIDTH, WORLD_HEIGHT, seed);
+		RunnerPilot pilot = new RunnerPilot(world);
+		float time = 0f;
+
+		while(!world.isGameOver() && time < timeLimit) {
+			pilot.steer();
+			world.update(timeStep);
+			time += timeStep;
+		}
+
+		return new GameResult(seed, world.getClock().getTime(), world.getGameOverReason(), world.getLevel());
+	}
+
+	/**
+	 * Simulates a range of games in a batch.
+	 */
+	private class SimulateTask extends RecursiveTask<BatchReport> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long[] seeds;
+		private final int from, to;
+
+		SimulateTask(long[] seeds, int from, int to) {
+			this.seeds = seeds;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected BatchReport compute() {
+			if(to - from <= GAMES_PER_TASK) {
+				BatchReport report = new BatchReport();
+				for(int i = from; i < to; i++) report.add(simulate(seeds[i]));
+				return report;
+			}
+
+			int middle = (from + to) >>> 1;
+			SimulateTask second = new SimulateTask(seeds, middle, to);
+			second.fork();
+
+			BatchReport report = new SimulateTask(seeds, from, middle).compute();
+			report.add(second.join());
+			return report;
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package com.supergreenowl.slugs.headless;
+
+import com.supergreenowl.sgdx.RandomSource;
+import com.supergreenowl.slugs.model.Box;
+import com.supergreenowl.slugs.model.Direction;
+
+/**
+ * Times moving, growing and shrinking boxes in each direction with {@link Box}, which looks directions up in
+ * tables, against the same operations written as a switch on the direction.
+ * <p>Directions are either random, as they are for the segments of many creatures, or all the same, where
+ * the switch is always predicted, so the difference between the two shows what mispredicting the switch costs.
+ * <p>Usage: {@code DirectionBenchmark [boxes] [passes] [rounds] [seed]}. Defaults to 4096 boxes, 2000 passes
+ * over them per round and 5 rounds, from a random seed.
+ * @author Luke
+ *
+ */
+public class DirectionBenchmark {
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	public static void main(String[] args) {
+		int boxes = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+		int passes = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : new RandomSource().nextLong();
+
+		RandomSource random = new RandomSource(seed);
+		Direction[] randomDirections = new Direction[boxes];
+		Direction[] sameDirections = new Direction[boxes];
+		for(int i = 0; i < boxes; i++) {
+			randomDirections[i] = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+			sameDirections[i] = Direction.RIGHT;
+		}
+
+		System.out.println("timing " + boxes + " boxes for " + passes + " passes from seed " + seed + "...");
+
+		for(int round = 1; round <= rounds; round++) {
+			double tableRandom = timeTable(randomDirections, passes);
+			double switchRandom = timeSwitch(randomDirections, passes);
+			double tableSame = timeTable(sameDirections, passes);
+			double switchSame = timeSwitch(sameDirections, passes);
+
+			System.out.println(String.format(
+					"round %d: random directions %.2f ns/op table, %.2f ns/op switch; same direction %.2f ns/op table, %.2f ns/op switch",
+					round, tableRandom, switchRandom, tableSame, switchSame));
+		}
+	}
+
+	/**
+	 * Times {@link Box} moving, growing and shrinking each box in its direction.
+	 * @return Nanoseconds per box per pass.
+	 */
+	private static double timeTable(Direction[] directions, int passes) {
+		Box[] boxes = new Box[directions.length];
+		for(int i = 0; i < boxes.length; i++) {
+			boxes[i] = new Box();
+			boxes[i].setSize(2f, 2f);
+		}
+
+		long start = System.nanoTime();
+		for(int pass = 0; pass < passes; pass++) {
+			for(int i = 0; i < boxes.length; i++) {
+				Box b = boxes[i];
+				Direction d = directions[i];
+				b.move(0.5f, d);
+				b.grow(0.25f, d);
+				b.shrink(0.25f, d);
+			}
+		}
+		long time = System.nanoTime() - start;
+
+		// use the result so that none of the work can be skipped
+		float sum = 0f;
+		for(Box b : boxes) sum += b.getLeft() + b.getBottom();
+		if(sum == Float.MIN_VALUE) System.out.println(sum);
+
+		return (double)time / passes / boxes.length;
+	}
+
+	/**
+	 * Times {@link SwitchBox} moving, growing and shrinking each box in its direction.
+	 * @return Nanoseconds per box per pass.
+	 */
+	private static double timeSwitch(Direction[] directions, int passes) {
+		SwitchBox[] boxes = new SwitchBox[directions.length];
+		for(int i = 0; i < boxes.length; i++) {
+			boxes[i] = new SwitchBox();
+			boxes[i].right = boxes[i].top = 2f;
+		}
+
+		long start = System.nanoTime();
+		for(int pass = 0; pass < passes; pass++) {
+			for(int i = 0; i < boxes.length; i++) {
+				SwitchBox b = boxes[i];
+				Direction d = directions[i];
+				b.move(0.5f, d);
+				b.grow(0.25f, d);
+				b.shrink(0.25f, d);
+			}
+		}
+		long time = System.nanoTime() - start;
+
+		float sum = 0f;
+		for(SwitchBox b : boxes) sum += b.left + b.bottom;
+		if(sum == Float.MIN_VALUE) System.out.println(sum);
+
+		return (double)time / passes / boxes.length;
+	}
+
+	/**
+	 * Box that moves, grows and shrinks with a switch on the direction, as {@link Box} used to.
+	 * @author Luke
+	 *
+	 */
+	private static class SwitchBox {
+
+		private float left, right, top, bottom;
+
+		void move(float amount, Direction direction) {
+			switch(direction) {
+			case LEFT:
+				left -= amount;
+				right -= amount;
+				break;
+			case RIGHT:
+				left += amount;
+				right += amount;
+				break;
+			case UP:
+				bottom += amount;
+				top += amount;
+				break;
+			case DOWN:
+				bottom -= amount;
+				top -= amount;
+				break;
+			}
+		}
+
+		void grow(float amount, Direction direction) {
+			switch(direction) {
+			case LEFT: left -= amount; break;
+			case RIGHT: right += amount; break;
+			case UP: top += amount; break;
+			case DOWN: bottom -= amount; break;
+			}
+		}
+
+		void shrink(float amount, Direction direction) {
+			switch(direction) {
+			case LEFT: right -= amount; break;
+			case RIGHT: left += amount; break;
+			case UP: bottom += amount; break;
+			case DOWN: top -= amount; break;
+			}
+		}
+	}
+}
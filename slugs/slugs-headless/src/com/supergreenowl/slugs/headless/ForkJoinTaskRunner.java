@@ -0,0 +1,93 @@
+package com.supergreenowl.slugs.headless;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.supergreenowl.sgdx.TaskRunner;
+
+/**
+ * Runs tasks in parallel on a {@link ForkJoinPool}.
+ * <p>The range of indexes is split in half recursively until each part has no more than a few tasks left.
+ * Batches that are no bigger than that are just run on the calling thread, as handing them to the pool
+ * would cost more than running them.
+ * @author Luke
+ *
+ */
+public class ForkJoinTaskRunner implements TaskRunner {
+
+	/**
+	 * Default number of tasks run in a single part of a batch before it stops splitting.
+	 */
+	public static final int DEFAULT_TASKS_PER_PART = 64;
+
+	private final ForkJoinPool pool;
+	private final int tasksPerPart;
+
+	/**
+	 * Creates a new runner with its own pool.
+	 * @param parallelism Number of threads to use.
+	 */
+	public ForkJoinTaskRunner(int parallelism) {
+		this(new ForkJoinPool(parallelism), DEFAULT_TASKS_PER_PART);
+	}
+
+	/**
+	 * Creates a new runner that uses an existing pool.
+	 * @param pool Pool to run tasks on.
+	 * @param tasksPerPart Number of tasks run in a single part of a batch before it stops splitting.
+	 */
+	public ForkJoinTaskRunner(ForkJoinPool pool, int tasksPerPart) {
+		if(pool == null) throw new IllegalArgumentException("pool must not be null");
+		if(tasksPerPart <= 0) throw new IllegalArgumentException("tasks per part must be positive");
+
+		this.pool = pool;
+		this.tasksPerPart = tasksPerPart;
+	}
+
+	@Override
+	public void run(int count, Task task) {
+		if(count <= tasksPerPart) {
+			for(int i = 0; i < count; i++) task.run(i);
+		}
+		else pool.invoke(new RunAction(task, 0, count));
+	}
+
+	/**
+	 * Shuts down the pool. Batches that have already been started still finish.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Runs a range of tasks in a batch.
+	 */
+	private class RunAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Task task;
+		private final int from, to;
+
+		RunAction(Task task, int from, int to) {
+			this.task = task;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from <= tasksPerPart) {
+				for(int i = from; i < to; i++) task.run(i);
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			RunAction second = new RunAction(task, middle, to);
+			second.fork();
+
+			new RunAction(task, from, middle).compute();
+			second.join();
+		}
+	}
+}
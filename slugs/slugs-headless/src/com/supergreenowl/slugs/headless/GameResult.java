@@ -0,0 +1,46 @@
+package com.supergreenowl.slugs.headless;
+
+import com.supergreenowl.slugs.model.World.GameOverReason;
+
+/**
+ * Outcome of a single simulated game.
+ * @author Luke
+ *
+ */
+public class GameResult {
+
+	private final long seed;
+	private final float survivalTime;
+	private final GameOverReason reason;
+	private final int level;
+
+	/**
+	 * Creates a new game result.
+	 * @param seed Seed of the game's world.
+	 * @param survivalTime Game time in seconds that the runner survived for.
+	 * @param reason Reason the game ended; {@link GameOverReason#NONE} if it was stopped at the time limit.
+	 * @param level Level reached.
+	 */
+	public GameResult(long seed, float survivalTime, GameOverReason reason, int level) {
+		this.seed = seed;
+		this.survivalTime = survivalTime;
+		this.reason = reason;
+		this.level = level;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public float getSurvivalTime() {
+		return survivalTime;
+	}
+
+	public GameOverReason getReason() {
+		return reason;
+	}
+
+	public int getLevel() {
+		return level;
+	}
+}
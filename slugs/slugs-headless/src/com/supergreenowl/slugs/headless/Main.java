@@ -0,0 +1,32 @@
+package com.supergreenowl.slugs.headless;
+
+import com.supergreenowl.sgdx.RandomSource;
+
+/**
+ * Runs a batch of headless games and prints a report.
+ * <p>Usage: {@code Main [games] [time step] [time limit] [threads] [seed]}. Defaults to 1000 games
+ * at 60 updates per second with a 10 minute limit on every available core, from a random seed.
+ * @author Luke
+ *
+ */
+public class Main {
+
+	public static void main(String[] args) {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		float timeStep = args.length > 1 ? Float.parseFloat(args[1]) : 1f / 60f;
+		float timeLimit = args.length > 2 ? Float.parseFloat(args[2]) : 600f;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		long seed = args.length > 4 ? Long.parseLong(args[4]) : new RandomSource().nextLong();
+
+		System.out.println("simulating " + games + " games on " + threads + " threads from seed " + seed + "...");
+
+		BatchSimulator simulator = new BatchSimulator(timeStep, timeLimit);
+		long start = System.nanoTime();
+		BatchReport report = simulator.run(games, threads, seed);
+		double seconds = (System.nanoTime() - start) / 1e9d;
+
+		report.print(System.out);
+		System.out.println(String.format("wall time: %.2fs (%.0f simulated seconds per wall minute)",
+				seconds, report.getSimulatedTime() / seconds * 60d));
+	}
+}
@@ -0,0 +1,67 @@
+package com.supergreenowl.slugs.headless;
+
+import com.supergreenowl.slugs.model.Creature;
+import com.supergreenowl.slugs.model.CreatureType;
+import com.supergreenowl.slugs.model.Direction;
+import com.supergreenowl.slugs.model.Point;
+import com.supergreenowl.slugs.model.RaycastHit;
+import com.supergreenowl.slugs.model.World;
+
+/**
+ * Steers the runner in a world in place of a player.
+ * <p>Before each update the pilot looks for obstacles in every direction from the runner's head.
+ * When the way ahead is blocked within a short distance it turns towards whichever side is clearer.
+ * This is not meant to play well - just consistently enough that changes to the game show up in the results.
+ * @author Luke
+ *
+ */
+public class RunnerPilot {
+
+	/**
+	 * Distance ahead at which the pilot starts to turn away from an obstacle.
+	 */
+	private static final float LOOK_AHEAD = 30f;
+
+	private final World world;
+	private final Creature runner;
+	private final RaycastHit[] hits = new RaycastHit[Direction.values().length];
+	private final Point target = new Point();
+
+	/**
+	 * Creates a new pilot for the runner in a world.
+	 * @param world World to steer the runner in.
+	 */
+	public RunnerPilot(World world) {
+		this.world = world;
+
+		Creature found = null;
+		for(Creature c : world.getCreatures()) {
+			if(c.getType() == CreatureType.RUNNER) found = c;
+		}
+		if(found == null) throw new IllegalArgumentException("world has no runner");
+		this.runner = found;
+
+		for(int i = 0; i < hits.length; i++) hits[i] = new RaycastHit();
+	}
+
+	/**
+	 * Turns the runner away from any obstacle close ahead of it.
+	 */
+	public void steer() {
+		if(world.isGameOver() || !runner.hasEnteredWorld()) return;
+
+		Point head = runner.getHeadPosition();
+		world.raycast(head, runner, hits);
+
+		Direction ahead = runner.getDirection();
+		if(hits[ahead.ordinal()].getDistance() >= LOOK_AHEAD) return;
+
+		Direction left = ahead.getDirectionAntiClockwise();
+		Direction right = left.getDirectionAntiClockwise().getDirectionAntiClockwise();
+		Direction turn = hits[left.ordinal()].getDistance() >= hits[right.ordinal()].getDistance() ? left : right;
+
+		target.set(head.getX() + (turn.isHorizontal() ? turn.getDisplacement(LOOK_AHEAD) : 0f),
+				head.getY() + (turn.isHorizontal() ? 0f : turn.getDisplacement(LOOK_AHEAD)));
+		world.turnRunner(target.getX(), target.getY());
+	}
+}
@@ -0,0 +1,131 @@
+package com.supergreenowl.slugs.headless;
+
+import java.util.concurrent.ForkJoinPool;
+
+import com.supergreenowl.sgdx.RandomSource;
+import com.supergreenowl.sgdx.SequentialTaskRunner;
+import com.supergreenowl.sgdx.TaskRunner;
+import com.supergreenowl.slugs.model.Box;
+import com.supergreenowl.slugs.model.Creature;
+import com.supergreenowl.slugs.model.Direction;
+import com.supergreenowl.slugs.model.Layer;
+import com.supergreenowl.slugs.model.LineStore;
+import com.supergreenowl.slugs.model.Segment;
+import com.supergreenowl.slugs.model.Worker;
+import com.supergreenowl.slugs.model.World;
+
+/**
+ * Checks that a world gives the same results whichever {@link TaskRunner} moves its creatures.
+ * <p>The same seeded game is run once with a {@link SequentialTaskRunner} and once with a {@link ForkJoinTaskRunner}
+ * for each thread count. After every update the bounds of every segment and line and how the game stands are
+ * folded into a trace hash, so any difference at any point shows up as a different hash.
+ * <p>The world is filled with extra workers and layers so that the parallel runner has large batches to split.
+ * When the game ends the world is reset and filled again, so the whole run is under load.
+ * <p>Usage: {@code TraceCheck [threads] [updates] [creatures] [seed]}, where threads is a comma separated list.
+ * Defaults to 1, 4 and 8 threads, 3000 updates at 60 per second and 800 extra creatures, from a random seed.
+ * Exits with status 1 if any hash differs from the sequential one.
+ * @author Luke
+ *
+ */
+public class TraceCheck {
+
+	private static final float TIME_STEP = 1f / 60f;
+
+	// small parts so that batches are split over the pool
+	private static final int TASKS_PER_PART = 16;
+
+	// extra creatures are placed no closer than this to the edges of the world
+	private static final float MARGIN = 10f;
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	public static void main(String[] args) {
+		String[] threadCounts = (args.length > 0 ? args[0] : "1,4,8").split(",");
+		int updates = args.length > 1 ? Integer.parseInt(args[1]) : 3000;
+		int creatures = args.length > 2 ? Integer.parseInt(args[2]) : 800;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : new RandomSource().nextLong();
+
+		System.out.println("tracing " + updates + " updates with " + creatures + " extra creatures from seed " + seed + "...");
+
+		long expected = trace(new SequentialTaskRunner(), updates, creatures, seed);
+		System.out.println("sequential: " + Long.toHexString(expected));
+
+		boolean isSame = true;
+		for(String count : threadCounts) {
+			int threads = Integer.parseInt(count.trim());
+			ForkJoinTaskRunner runner = new ForkJoinTaskRunner(new ForkJoinPool(threads), TASKS_PER_PART);
+
+			try {
+				long hash = trace(runner, updates, creatures, seed);
+				System.out.println(threads + " threads: " + Long.toHexString(hash) + (hash == expected ? "" : " DIFFERS"));
+				isSame &= hash == expected;
+			}
+			finally {
+				runner.shutdown();
+			}
+		}
+
+		System.out.println(isSame ? "all traces match" : "traces differ");
+		if(!isSame) System.exit(1);
+	}
+
+	/**
+	 * Runs a game and hashes the state of the world after every update.
+	 * @param runner Runner to move creatures with.
+	 * @param updates Number of updates to run.
+	 * @param creatures Number of extra creatures to fill the world with.
+	 * @param seed Seed for the world and the extra creatures.
+	 * @return Trace hash.
+	 */
+	public static long trace(TaskRunner runner, int updates, int creatures, long seed) {
+		World world = new World(BatchSimulator.WORLD_WIDTH, BatchSimulator.WORLD_HEIGHT, seed);
+		world.setTaskRunner(runner);
+		RunnerPilot pilot = new RunnerPilot(world);
+		RandomSource random = new RandomSource(seed);
+		Box box = new Box();
+		long hash = 17L;
+
+		fill(world, creatures, random);
+
+		for(int i = 0; i < updates; i++) {
+			if(world.isGameOver()) {
+				world.reset();
+				fill(world, creatures, random);
+			}
+
+			pilot.steer();
+			world.update(TIME_STEP);
+
+			for(Creature c : world.getCreatures()) {
+				for(Segment s : c) hash = hash(hash, s.getBoundingBox(box));
+			}
+
+			LineStore lines = world.getLines();
+			for(int line = 0; line < lines.size(); line++) hash = hash(hash, lines.getBoundingBox(line, box));
+
+			hash = hash * 31L + (world.isGameOver() ? world.getGameOverReason().ordinal() + 1 : 0);
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Adds workers and layers at random points in a world, one layer for every four workers.
+	 */
+	private static void fill(World world, int creatures, RandomSource random) {
+		for(int i = 0; i < creatures; i++) {
+			Creature c = i % 5 == 0 ? new Layer() : new Worker();
+			float x = MARGIN + random.nextFloat() * (world.getWidth() - 2f * MARGIN);
+			float y = MARGIN + random.nextFloat() * (world.getHeight() - 2f * MARGIN);
+			c.place(x, y, DIRECTIONS[random.nextInt(DIRECTIONS.length)]);
+			world.add(c);
+		}
+	}
+
+	private static long hash(long hash, Box b) {
+		hash = hash * 31L + Float.floatToIntBits(b.getLeft());
+		hash = hash * 31L + Float.floatToIntBits(b.getRight());
+		hash = hash * 31L + Float.floatToIntBits(b.getBottom());
+		return hash * 31L + Float.floatToIntBits(b.getTop());
+	}
+}
@@ -2,6 +2,11 @@ package com.supergreenowl.slugs.model;
 
 public class Box {
 
+	/**
+	 * Returned by {@link #getTimeOfImpact(Box, Box, Box, Box)} when two boxes never touch.
+	 */
+	public static final float NO_IMPACT = -1f;
+
 	private float left, right, top, bottom;
 	
 	private Point centre = new Point();
@@ -92,7 +97,17 @@ public class Box {
 	 */
 	public boolean contains(Point p) {
 		if(p == null) return false;
-		return left <= p.getX() && right >= p.getX() && bottom <= p.getY() && top >= p.getY();
+		return contains(p.getX(), p.getY());
+	}
+	
+	/**
+	 * Determines if a point falls within this box.
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public boolean contains(float x, float y) {
+		return left <= x && right >= x && bottom <= y && top >= y;
 	}
 	
 	public float getWidth() {
@@ -123,59 +138,104 @@ public class Box {
 	}
 	
 	public void move(float amount, Direction direction) {
-		switch(direction) {
-		case LEFT:
-			left -= amount;
-			right -= amount;
-			break;
-		case RIGHT:
-			left += amount;
-			right += amount;
-			break;
-		case UP:
-			bottom += amount;
-			top += amount;
-			break;
-		case DOWN:
-			bottom -= amount;
-			top -= amount;
-			break;
-		}
+		int d = direction.ordinal();
+		float x = amount * Direction.DX[d], y = amount * Direction.DY[d];
+		left += x;
+		right += x;
+		bottom += y;
+		top += y;
 	}
 	
 	public void grow(float amount, Direction direction) {
-		switch(direction) {
-		case LEFT:
-			left -= amount;
-			break;
-		case RIGHT:
-			right += amount;
-			break;
-		case UP:
-			top += amount;
-			break;
-		case DOWN:
-			bottom -= amount;
-			break;
-		}
-		
+		int d = direction.ordinal();
+		float s = amount * Direction.SIGN[d];
+		left += s * Direction.FACES_LEFT[d];
+		right += s * Direction.FACES_RIGHT[d];
+		bottom += s * Direction.FACES_DOWN[d];
+		top += s * Direction.FACES_UP[d];
 	}
 	
 	public void shrink(float amount, Direction direction) {
-		switch(direction) {
-		case LEFT:
-			right -= amount;
-			break;
-		case RIGHT:
-			left += amount;
-			break;
-		case UP:
-			bottom += amount;
-			break;
-		case DOWN:
-			top -= amount;
-			break;
-		}
+		int d = direction.ordinal();
+		float s = amount * Direction.SIGN[d];
+		left += s * Direction.FACES_RIGHT[d];
+		right += s * Direction.FACES_LEFT[d];
+		bottom += s * Direction.FACES_UP[d];
+		top += s * Direction.FACES_DOWN[d];
+	}
+	
+	/**
+	 * Gets the edge of this box that faces a direction, so the top edge for UP and so on.
+	 * Every edge of this box must be finite, as the edges that are not wanted are multiplied by 0.
+	 * @param direction Direction.
+	 * @return Position of the edge along the axis of the direction.
+	 */
+	float getFront(Direction direction) {
+		int d = direction.ordinal();
+		return left * Direction.FACES_LEFT[d] + right * Direction.FACES_RIGHT[d]
+				+ bottom * Direction.FACES_DOWN[d] + top * Direction.FACES_UP[d];
+	}
+	
+	/**
+	 * Gets the edge of this box that faces away from a direction, so the bottom edge for UP and so on.
+	 * Every edge of this box must be finite, as for {@link #getFront(Direction)}.
+	 * @param direction Direction.
+	 * @return Position of the edge along the axis of the direction.
+	 */
+	float getBack(Direction direction) {
+		int d = direction.ordinal();
+		return left * Direction.FACES_RIGHT[d] + right * Direction.FACES_LEFT[d]
+				+ bottom * Direction.FACES_UP[d] + top * Direction.FACES_DOWN[d];
+	}
+	
+	/**
+	 * Sets the edge of this box that faces a direction, leaving the other edges where they are.
+	 * @param value Position of the edge along the axis of the direction.
+	 * @param direction Direction.
+	 */
+	void setFront(float value, Direction direction) {
+		int d = direction.ordinal();
+		left = select(left, value, Direction.FACES_LEFT[d]);
+		right = select(right, value, Direction.FACES_RIGHT[d]);
+		bottom = select(bottom, value, Direction.FACES_DOWN[d]);
+		top = select(top, value, Direction.FACES_UP[d]);
+	}
+	
+	/**
+	 * Sets the edge of this box that faces away from a direction, leaving the other edges where they are.
+	 * @param value Position of the edge along the axis of the direction.
+	 * @param direction Direction.
+	 */
+	void setBack(float value, Direction direction) {
+		int d = direction.ordinal();
+		left = select(left, value, Direction.FACES_RIGHT[d]);
+		right = select(right, value, Direction.FACES_LEFT[d]);
+		bottom = select(bottom, value, Direction.FACES_UP[d]);
+		top = select(top, value, Direction.FACES_DOWN[d]);
+	}
+	
+	/**
+	 * Picks one of two values with a mask from {@link Direction} rather than a branch.
+	 * <p>Both values must be finite. The value that is not picked is multiplied by 0, which gives NaN
+	 * for an infinite value rather than leaving the picked value unchanged.
+	 * @param value Value when the mask is 0.
+	 * @param other Value when the mask is 1.
+	 * @param mask 0 or 1.
+	 * @return Selected value.
+	 */
+	static float select(float value, float other, float mask) {
+		return value * (1f - mask) + other * mask;
+	}
+	
+	/**
+	 * Grows this box by the same amount on every side.
+	 * @param amount Amount to grow each side by.
+	 */
+	public void expand(float amount) {
+		left -= amount;
+		right += amount;
+		bottom -= amount;
+		top += amount;
 	}
 	
 	public void growX(float displacement) {
@@ -203,6 +263,59 @@ public class Box {
 		top = bottom + height;
 	}
 	
+	/**
+	 * Finds the earliest time at which two moving boxes touch. Each edge of each box is assumed
+	 * to move at a constant rate from its start position to its end position over the step, which
+	 * holds for a head segment that either moves or grows. A box that does not move can be passed
+	 * as both its start and end.
+	 * <p>Boxes that touch at the end of the step always have an impact, so this never misses a
+	 * collision that {@link #intersects(Box)} on the end boxes would find.
+	 * @param startA Box A at the start of the step.
+	 * @param endA Box A at the end of the step.
+	 * @param startB Box B at the start of the step.
+	 * @param endB Box B at the end of the step.
+	 * @return Time of impact as a fraction of the step from 0 to 1, or {@link #NO_IMPACT}.
+	 */
+	public static float getTimeOfImpact(Box startA, Box endA, Box startB, Box endB) {
+		float earliest = 0f, latest = 1f;
+		
+		// boxes touch while each of these four gaps between opposite edges is not negative
+		for(int i = 0; i < 4; i++) {
+			float gapAtStart, gapAtEnd;
+			
+			switch(i) {
+			case 0:
+				gapAtStart = startB.right - startA.left;
+				gapAtEnd = endB.right - endA.left;
+				break;
+			case 1:
+				gapAtStart = startA.right - startB.left;
+				gapAtEnd = endA.right - endB.left;
+				break;
+			case 2:
+				gapAtStart = startB.top - startA.bottom;
+				gapAtEnd = endB.top - endA.bottom;
+				break;
+			default:
+				gapAtStart = startA.top - startB.bottom;
+				gapAtEnd = endA.top - endB.bottom;
+				break;
+			}
+			
+			if(gapAtStart < 0f) {
+				if(gapAtEnd < 0f) return NO_IMPACT;
+				// gap closes during the step
+				earliest = Math.max(earliest, gapAtStart / (gapAtStart - gapAtEnd));
+			}
+			else if(gapAtEnd < 0f) {
+				// gap opens during the step
+				latest = Math.min(latest, gapAtStart / (gapAtStart - gapAtEnd));
+			}
+		}
+		
+		return earliest <= latest ? earliest : NO_IMPACT;
+	}
+	
 	@Override
 	public String toString() {
 		return String.format("[%.2f,  %.2f, %.2f, %.2f]", left, bottom, top, right);
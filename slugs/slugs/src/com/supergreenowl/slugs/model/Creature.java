@@ -2,10 +2,16 @@ package com.supergreenowl.slugs.model;
 
 import java.util.Iterator;
 
+import com.supergreenowl.sgdx.RandomSource;
 import com.supergreenowl.sgdx.Resettable;
 
 /**
  * A creature in the world. Creates are represented by a list of segments.
+ * <p>The segments are kept in a ring buffer with a slot for each segment the creature can have.
+ * Segment i from the head is in slot (head slot + i) modulo the number of slots. A turn grows a new head
+ * in the slot before the old head, and a tail that has shrunk away is dropped by counting one segment
+ * fewer, so neither moves any other segment. The bounds and direction of every slot are kept in
+ * primitive arrays, with a copy of the head's bounds in a box because so much asks about the head.
  * @author Luke
  * @see Segment
  */
@@ -16,66 +22,162 @@ public abstract class Creature implements Iterable<Segment>, Resettable {
 	 */
 	static final float BASE_SPEED = 24f;
 	
-	private final Segment head = new Segment();
-	private Segment tail = head;
+	static final Direction[] DIRECTIONS = Direction.values();
+	
+	// bounds and direction ordinal of each slot in the body
+	final float[] lefts, rights, bottoms, tops;
+	final byte[] directions;
+	
+	private final Segment[] slots;
+	private int headSlot = 0;
 	private int segments = 1;
+	
+	// copy of the head's bounds - always changed here first and then stored in the head's slot
+	private final Box headBox = new Box();
+	private Direction direction = null;
+	
+	// bounds of a segment other than the head while it is being changed
+	private final Box segmentBox = new Box();
+	
 	private float speed = BASE_SPEED;
 	private float baseSpeed = BASE_SPEED;
 	
 	private final float width, height, growthSize;
 	private final int maxSegments;
+	private final Box moveStart = new Box();
 	private final Box lastMove = new Box();
 	private float distance = 0f;
 	private boolean hasEnteredWorld = false;
 	
 	private float speedMultiplier = 1f;
 	
-	private final boolean canBeEaten, canEatCreatures;
+	private final CreatureType type;
 	
-	private Segment[] segmentPool;
-	private SegmentIterator iterator = new SegmentIterator(head);
+	private SegmentIterator iterator = new SegmentIterator(this);
 	
 	private World world;
 	
+	// segment dropped from the tail by the last move, until the move is applied to the world
+	private Segment removedTail = null;
+	
+	/**
+	 * Source of this creature's random decisions, seeded by the world when the creature is added.
+	 * Each creature has its own so that creatures can think at the same time without changing each other's decisions.
+	 */
+	final RandomSource random = new RandomSource(0L);
+	
+	/**
+	 * Slot occupied by this creature in the world's creature grid; -1 when not in a grid.
+	 */
+	int gridSlot = -1;
+	
+	/**
+	 * Id of this creature within its world; -1 until first added to a world.
+	 */
+	int id = -1;
+	
+	/**
+	 * Incremented each time this creature is removed from its world, so that old handles stop resolving.
+	 */
+	int generation = 0;
+	
+	/**
+	 * Slot of this creature in its world's registry, and in the registry's list of creatures with each
+	 * component by {@link CreatureComponent#ordinal()}; -1 when not in a world.
+	 */
+	int registrySlot = -1;
+	final int[] componentSlots = newComponentSlots();
+	
+	/**
+	 * Time at the end of the update in which this creature last thought; negative infinity if it has not yet thought.
+	 */
+	float lastThinkTime = Float.NEGATIVE_INFINITY;
+	
+	/**
+	 * Time at which this creature's behaviour next expects to make a decision, and whether that time has passed
+	 * since it last thought. Kept by the world's {@link ThinkScheduler}.
+	 */
+	float decisionTime = CreatureBehaviour.NEVER;
+	boolean isDecisionDue = false;
+	
+	/**
+	 * Incremented whenever this creature changes direction or speed.
+	 */
+	int motionVersion = 0;
+	
+	/**
+	 * Contact proxies for this creature as an eater and as prey; -1 when not in a world or not applicable.
+	 */
+	int eaterProxy = -1, preyProxy = -1;
+	
+	/**
+	 * Broadphase proxy for this creature against lines; -1 when not in a world or it does not eat lines.
+	 */
+	int broadphaseProxy = -1;
+	
 	/**
 	 * Creates a new creature of the specified size.
+	 * @param type Type of this creature.
 	 * @param width Width of this creature (when it is facing up).
 	 * @param height Height of this creature (when it is facing up).
-	 * @param canBeEaten Indicates if this creature can be eaten by other creatures.
-	 * @param canEatCreatures Indicates if this creature can eat other 
 	 */
-	public Creature(float width, float height, boolean canBeEaten, boolean canEatCreatures) {
+	public Creature(CreatureType type, float width, float height) {
 		if(width > height) {
 			throw new IllegalArgumentException("creature width must not be greater than height");
 		}
 		
+		this.type = type;
 		this.width = width;
 		this.height = height;
 		this.growthSize = 2f * width;
 		this.maxSegments = (int)Math.floor(height / width);
-		this.canBeEaten = canBeEaten;
-		this.canEatCreatures = canEatCreatures;
 		
-		// if this is multi-segment creature, create a pool of segments to reuse 
-		if(maxSegments > 1) {
-			segmentPool = new Segment[maxSegments - 1]; // head is never in pool
-			
-			for(int i = 0; i < segmentPool.length; i++) {
-				segmentPool[i] = new Segment();
-			}
+		int capacity = Math.max(maxSegments, 1);
+		lefts = new float[capacity];
+		rights = new float[capacity];
+		bottoms = new float[capacity];
+		tops = new float[capacity];
+		directions = new byte[capacity];
+		
+		slots = new Segment[capacity];
+		for(int i = 0; i < capacity; i++) {
+			slots[i] = new Segment(this, i);
 		}
 	}
 	
 	public float getWidth() {
 		return this.width;
 	}
+	
+	/**
+	 * Gets the id of this creature. Ids are unique within a world and are kept
+	 * when a creature is returned to its nest and reused.
+	 * @return Id or -1 if this creature has never been added to a world.
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Gets a handle to this creature as it is now. The handle resolves to this creature until it is removed
+	 * from its world, unlike its id which it keeps when it is returned to its nest and reused.
+	 * @return Handle or -1 if this creature has never been added to a world.
+	 * @see World#resolveCreature(int)
+	 */
+	public int getHandle() {
+		return id == -1 ? -1 : CreatureRegistry.getHandle(this);
+	}
+
+	public CreatureType getType() {
+		return this.type;
+	}
 
 	public boolean canEatCreatures() {
-		return this.canEatCreatures;
+		return type.has(CreatureComponent.EATS_CREATURES);
 	}
 	
 	public boolean canBeEaten() {
-		return this.canBeEaten;
+		return type.has(CreatureComponent.EDIBLE);
 	}
 	
 	/**
@@ -100,12 +202,21 @@ public abstract class Creature implements Iterable<Segment>, Resettable {
 		// offset point so that front of head is at the specified point
 		float offset = height / 2f;
 		
-		if(direction == Direction.RIGHT) x -= offset;
-		else if(direction == Direction.LEFT) x += offset;
-		else if(direction == Direction.UP) y -= offset;
-		else if(direction == Direction.DOWN) y += offset;
+		int d = direction.ordinal();
+		x -= offset * Direction.DX[d];
+		y -= offset * Direction.DY[d];
 		
-		head.place(x, y, width, height, direction);
+		if(direction.isHorizontal()) headBox.setSize(height, width);
+		else headBox.setSize(width, height);
+		
+		headBox.moveTo(x, y);
+		this.direction = direction;
+		storeHead();
+		motionVersion++;
+		
+		// has not moved since being placed
+		moveStart.set(headBox);
+		lastMove.set(moveStart);
 	}
 	
 	/**
@@ -115,6 +226,7 @@ public abstract class Creature implements Iterable<Segment>, Resettable {
 	public void setSpeedMultiplier(float speedMultiplier) {
 		this.speedMultiplier = speedMultiplier;
 		this.speed = this.baseSpeed * speedMultiplier;
+		motionVersion++;
 	}
 	
 	/**
@@ -124,6 +236,15 @@ public abstract class Creature implements Iterable<Segment>, Resettable {
 	public void setSpeed(float speed) {
 		this.baseSpeed = speed;
 		this.speed = speed * this.speedMultiplier;
+		motionVersion++;
+	}
+	
+	/**
+	 * Gets the speed multiplier currently applied to this creature.
+	 * @return Speed multiplier.
+	 */
+	protected float getSpeedMultiplier() {
+		return speedMultiplier;
 	}
 	
 	/**
@@ -149,63 +270,71 @@ public abstract class Creature implements Iterable<Segment>, Resettable {
 	 */
 	public void turn(Direction direction) {
 		// cannot turn to current direction or opposite direction
-		if(direction == null || direction.isHorizontal() == head.getDirection().isHorizontal())
+		if(direction == null || direction.isHorizontal() == this.direction.isHorizontal())
 			return;
 
 		// A multi-segment creature grows when it turns
 		if(maxSegments > 1) {
 			if(!canGrow()) return;
-			
-			Segment next = getAvailableSegment();
-			segments++;
-			
-			head.split(next, width);
-			
-			// if new segment is last, mark it as tail
-			if(next.getNext() == null) tail = next;
+			split();
 		}
 		
 		// Turn head to face the new direction
-		head.setDirection(direction);
+		this.direction = direction;
+		directions[headSlot] = (byte)direction.ordinal();
+		motionVersion++;
 	}
 	
 	/**
 	 * Moves this creature forward in it's current direction.
+	 * <p>The world moves all its creatures at once, possibly on several threads, so this must only change
+	 * this creature. Anything else in the world is read as it was before any creature moved and changes
+	 * to it are left to {@link #applyMove()}. Every move must be followed by applying it.
 	 * @param time Number of seconds to move for.
 	 */
 	public void move(float time) {
 		
-		think(); // allow subclasses to run AI
+		// allow subclasses to run AI, though not necessarily on every move
+		if(world.isThinkDue(this)) {
+			think();
+			lastThinkTime = world.getClock().getTime();
+			isDecisionDue = false;
+		}
 		
 		distance = speed * time;
 		
-		lastMove.set(head.getBoundingBox());
-		lastMove.grow(distance, head.getDirection());
+		moveStart.set(headBox);
+		lastMove.set(moveStart);
+		lastMove.grow(distance, direction);
 		
-		float currentSize = 0f;
+		// sole segment moves, otherwise the head grows, the tail shrinks and the middle stays still
+		if(segments == 1) headBox.move(distance, direction);
+		else {
+			headBox.grow(distance, direction);
+			shrinkSegment(getSlot(segments - 1), distance);
+		}
+		storeHead();
 		
-		for(Segment s : this) {
-			s.move(distance);
-			currentSize += s.getSize();
+		float currentSize = 0f;
+		for(int i = 0; i < segments; i++) {
+			currentSize += getSize(getSlot(i));
 		}
 		
-		if(!tail.isActive()) {
-			if(head == tail) throw new IllegalStateException("head is inactive");
+		int tailSlot = getSlot(segments - 1);
+		if(getSize(tailSlot) < 0f) {
+			if(segments == 1) throw new IllegalStateException("head is inactive");
 			
 			// remove last segment
 			segments--;
-			Segment oldTail = tail;
-			tail = tail.getPrevious();
-			tail.insert(null);
-			oldTail.clear();
+			removedTail = slots[tailSlot];
 		}
 		
 		// turning can cause creatures to grow slowly over time
 		// (rounding error?) so shrink down to expected size 
-		if(currentSize > height) tail.shrink(currentSize - height);
+		if(currentSize > height) shrinkSegment(getSlot(segments - 1), currentSize - height);
 				
 		if(!hasEnteredWorld) {
-			Point p = head.getPosition();
+			Point p = headBox.getCentre();
 			hasEnteredWorld = p.getX() > 0f
 					&& p.getX() < world.getWidth()
 					&& p.getY() > 0f
@@ -214,6 +343,65 @@ public abstract class Creature implements Iterable<Segment>, Resettable {
 		}
 	}
 	
+	/**
+	 * Applies the effects of the last move to the rest of the world.
+	 * Called by the world once every creature has moved, for one creature at a time in the order of the world's registry.
+	 */
+	void applyMove() {
+		if(removedTail != null) {
+			world.removeSegment(removedTail);
+			removedTail = null;
+		}
+		
+		world.updateSegments(this);
+	}
+	
+	/**
+	 * Gets the time until this creature's behaviour may next decide to do something different
+	 * if it keeps moving in a straight line at its current speed. Times may be too early but never too late.
+	 * @return Time in seconds, 0 if a decision is due now, or {@link CreatureBehaviour#NEVER}.
+	 */
+	float getTimeToNextDecision() {
+		return CreatureBehaviour.NEVER;
+	}
+	
+	/**
+	 * Gets the time until something may next happen to this creature if it keeps moving
+	 * in a straight line at its current speed. The default implementation covers entering and
+	 * leaving the world; subclasses add their own events. Times may be too early but never too late.
+	 * @param horizon Furthest ahead worth looking, in seconds. Searches that find nothing within
+	 * this time should return the horizon.
+	 * @return Time in seconds, 0 if something is due now.
+	 */
+	float getTimeToNextEvent(float horizon) {
+		if(speed <= 0f) return CreatureBehaviour.NEVER;
+		
+		// the head of a multi-segment creature grows so its centre moves at no more than full speed
+		Point p = headBox.getCentre();
+		Direction d = direction;
+		float along = d.isHorizontal() ? p.getX() : p.getY();
+		float across = d.isHorizontal() ? p.getY() : p.getX();
+		float alongSize = d.isHorizontal() ? world.getWidth() : world.getHeight();
+		float acrossSize = d.isHorizontal() ? world.getHeight() : world.getWidth();
+		boolean isIncreasing = d == Direction.RIGHT || d == Direction.UP;
+		
+		if(!hasEnteredWorld) {
+			// can only enter by moving across the near edge while already within the world on the other axis
+			if(across <= 0f || across >= acrossSize) return CreatureBehaviour.NEVER;
+			if(isIncreasing) {
+				if(along >= alongSize) return CreatureBehaviour.NEVER;
+				return along <= 0f ? -along / speed : 0f;
+			}
+			if(along <= 0f) return CreatureBehaviour.NEVER;
+			return along >= alongSize ? (along - alongSize) / speed : 0f;
+		}
+		
+		// leaves by crossing the far edge - once outside there is nothing more to happen
+		if(across < 0f || across > acrossSize) return CreatureBehaviour.NEVER;
+		if(isIncreasing) return along > alongSize ? CreatureBehaviour.NEVER : (alongSize - along) / speed;
+		return along < 0f ? CreatureBehaviour.NEVER : along / speed;
+	}
+	
 	/**
 	 * Gets the total distance moved by this creature on its last move.
 	 * @return Last distance moved.
@@ -230,28 +418,87 @@ public abstract class Creature implements Iterable<Segment>, Resettable {
 	public Iterator<Segment> iterator() {
 		// re-use same iterator each time
 		// avoids multiple instantiations per creature per frame
-		iterator.current = head; // reset before use
+		iterator.index = 0; // reset before use
 		
 		return iterator;
 	}
 	
+	/**
+	 * Gets the number of segments in this creature.
+	 * @return Number of segments, at least 1.
+	 */
+	public int getSegmentCount() {
+		return segments;
+	}
+	
+	/**
+	 * Gets a segment of this creature.
+	 * @param index Index of the segment from 0 for the head to {@link #getSegmentCount()} - 1 for the tail.
+	 * @return Segment.
+	 */
+	public Segment getSegment(int index) {
+		return slots[getSlot(index)];
+	}
+	
+	/**
+	 * Gets the area covered by the head of this creature.
+	 * @return Box, which must not be changed.
+	 */
+	public Box getHeadBox() {
+		return headBox;
+	}
+	
+	/**
+	 * Gets the position of the centre of the head of this creature.
+	 * @return Centre point.
+	 */
+	public Point getHeadPosition() {
+		return headBox.getCentre();
+	}
+	
+	/**
+	 * Gets the length of the head of this creature.
+	 * @return Size of the head.
+	 * @see Segment#getSize()
+	 */
+	public float getHeadSize() {
+		return getSize(headSlot);
+	}
+	
+	/**
+	 * Gets the direction that the head of this creature is facing.
+	 * @return Direction or null if this creature has not been placed.
+	 */
+	public Direction getDirection() {
+		return direction;
+	}
+	
 	@Override
 	public void reset() {
 		segments = 1;
-		head.reset();
-		tail = head;
+		headSlot = 0;
+		direction = null;
+		headBox.setLeft(0f);
+		headBox.setRight(0f);
+		headBox.setBottom(0f);
+		headBox.setTop(0f);
 		
-		if(segmentPool != null) {
-			for(int i = 0; i < segmentPool.length; i++) {
-				segmentPool[i].reset();
-			}
+		for(int i = 0; i < slots.length; i++) {
+			slots[i].treeProxy = SegmentTree.NONE;
 		}
 		
+		removedTail = null;
+		lastThinkTime = Float.NEGATIVE_INFINITY;
+		decisionTime = CreatureBehaviour.NEVER;
+		isDecisionDue = false;
 		distance = 0f;
 		hasEnteredWorld = false;
 		speedMultiplier = 1f;
 		speed = BASE_SPEED;
 		baseSpeed = BASE_SPEED;
+		eaterProxy = -1;
+		preyProxy = -1;
+		broadphaseProxy = -1;
 	}
 
 	/**
@@ -259,15 +506,17 @@ public abstract class Creature implements Iterable<Segment>, Resettable {
 	 * @return
 	 */
 	protected boolean canGrow() {
-		return segments < maxSegments && head.getSize() >= growthSize;
+		return segments < maxSegments && getHeadSize() >= growthSize;
 	}
 	
 	/**
-	 * Gets the head segment of this creature.
-	 * @return Head segment.
+	 * Gets the furthest this creature could move in the specified time, at its fastest speed.
+	 * The default is its current speed; creatures that change their own speed must override this.
+	 * @param time Duration of the move.
+	 * @return Maximum distance.
 	 */
-	protected Segment getHead() {
-		return head;
+	float getMaxMoveDistance(float time) {
+		return speed * time;
 	}
 	
 	/**
@@ -278,6 +527,23 @@ public abstract class Creature implements Iterable<Segment>, Resettable {
 		return lastMove;
 	}
 	
+	/**
+	 * Gets the box covered by the head of this creature at the start of its last move.
+	 * The head's box at the end of the move is its current bounding box.
+	 * @return
+	 */
+	protected Box getMoveStart() {
+		return moveStart;
+	}
+	
+	/**
+	 * Gets the pseudo-random number generator for this creature's decisions.
+	 * @return Random number generator.
+	 */
+	protected RandomSource getRandom() {
+		return random;
+	}
+	
 	/**
 	 * Gets the world that this creature belongs to.
 	 * @return
@@ -289,24 +555,83 @@ public abstract class Creature implements Iterable<Segment>, Resettable {
 	/**
 	 * Runs any AI logic for this creature. The default implementation is empty -
 	 * subclasses should override this method to run their AI.
+	 * <p>Called at the start of a move, but only as often as the world's {@link ThinkScheduler} allows.
 	 */
 	protected void think() {
 		// Default empty implementation.
 	}
 	
+	private static int[] newComponentSlots() {
+		int[] slots = new int[CreatureComponent.values().length];
+		for(int i = 0; i < slots.length; i++) slots[i] = -1;
+		return slots;
+	}
+	
 	/**
-	 * Gets the next available segment from the pool.
-	 * Any segment that is inactive is considered available.
-	 * @return Available segment.
+	 * Gets the length of the segment in a slot.
 	 */
-	private Segment getAvailableSegment() {
-		// linearly search segment pool for first non-active segment
-		for(int i = 0; i < segmentPool.length; i++) {
-			Segment current = segmentPool[i];
-			if(!current.isActive()) return current;
-		}
+	float getSize(int slot) {
+		int d = directions[slot];
+		return (rights[slot] - lefts[slot]) * Direction.ALONG_X[d] + (tops[slot] - bottoms[slot]) * Direction.ALONG_Y[d];
+	}
+	
+	/**
+	 * Gets the slot of a segment.
+	 */
+	private int getSlot(int index) {
+		int slot = headSlot + index;
+		return slot < slots.length ? slot : slot - slots.length;
+	}
+	
+	/**
+	 * Splits the head in two. The front of the head becomes a new head in the slot before it,
+	 * the length of the creature's width, and the rest stays in the old head's slot.
+	 */
+	private void split() {
+		segmentBox.set(headBox);
+		
+		// split a width back from the front of the head
+		float splitPoint = headBox.getFront(direction) - direction.getDisplacement(width);
+		segmentBox.setFront(splitPoint, direction);
+		headBox.setBack(splitPoint, direction);
+		
+		store(headSlot, segmentBox);
 		
-		throw new IllegalStateException("cannot add segment with no segments in pool");
+		headSlot = headSlot == 0 ? slots.length - 1 : headSlot - 1;
+		segments++;
+		
+		directions[headSlot] = (byte)direction.ordinal();
+		storeHead();
+	}
+	
+	/**
+	 * Shrinks the segment in a slot from the back.
+	 */
+	private void shrinkSegment(int slot, float amount) {
+		if(slot == headSlot) {
+			headBox.shrink(amount, direction);
+			storeHead();
+		}
+		else {
+			segmentBox.setLeft(lefts[slot]);
+			segmentBox.setRight(rights[slot]);
+			segmentBox.setBottom(bottoms[slot]);
+			segmentBox.setTop(tops[slot]);
+			segmentBox.shrink(amount, DIRECTIONS[directions[slot]]);
+			store(slot, segmentBox);
+		}
+	}
+	
+	private void storeHead() {
+		store(headSlot, headBox);
+		directions[headSlot] = (byte)direction.ordinal();
+	}
+	
+	private void store(int slot, Box b) {
+		lefts[slot] = b.getLeft();
+		rights[slot] = b.getRight();
+		bottoms[slot] = b.getBottom();
+		tops[slot] = b.getTop();
 	}
 	
 	/**
@@ -317,23 +642,22 @@ public abstract class Creature implements Iterable<Segment>, Resettable {
 	 */
 	public static class SegmentIterator implements Iterator<Segment> {
 		
-		private Segment current = null;
+		private final Creature creature;
+		private int index = 0;
 		
-		public SegmentIterator(Segment segment) {
-			current = segment;
+		public SegmentIterator(Creature creature) {
+			this.creature = creature;
 		}
 		
 		@Override
 		public boolean hasNext() {
-			return current != null;
+			return index < creature.segments;
 		}
 
 		@Override
 		public Segment next() {
-			Segment currentSegment = current;
-			if(current != null) current = current.getNext();
-			
-			return currentSegment;
+			if(index >= creature.segments) return null;
+			return creature.getSegment(index++);
 		}
 
 		@Override
@@ -2,6 +2,20 @@ package com.supergreenowl.slugs.model;
 
 interface CreatureBehaviour {
 
+	/**
+	 * Returned by {@link #getTimeToNextDecision()} when a behaviour will not change its mind
+	 * unless something else changes first.
+	 */
+	public static final float NEVER = Float.MAX_VALUE;
+	
 	public void think();
 	
+	/**
+	 * Gets the time until this behaviour may next decide to do something different, assuming
+	 * the creature keeps moving in a straight line at its current speed. It is fine to return
+	 * a time that is too early but never one that is too late.
+	 * @return Time in seconds, 0 if a decision is due now, or {@link #NEVER}.
+	 */
+	public float getTimeToNextDecision();
+	
 }
@@ -0,0 +1,25 @@
+package com.supergreenowl.slugs.model;
+
+/**
+ * The parts of a creature's behaviour that the world handles for it. Each type of creature has a set
+ * of components and the world keeps the creatures with each component together, so each of its
+ * systems only looks at the creatures it applies to rather than testing the type of every creature.
+ * @author Luke
+ * @see CreatureType#has(CreatureComponent)
+ */
+public enum CreatureComponent {
+	/** Can be eaten by creatures that eat creatures. */
+	EDIBLE,
+	/** Eats edible creatures that it runs into. */
+	EATS_CREATURES,
+	/** Cleans up lines that it moves over. */
+	EATS_LINES;
+
+	/**
+	 * Gets the mask bit for this component.
+	 * @return Bit for this component.
+	 */
+	public int getMask() {
+		return 1 << ordinal();
+	}
+}
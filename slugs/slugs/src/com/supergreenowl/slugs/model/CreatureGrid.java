@@ -0,0 +1,264 @@
+package com.supergreenowl.slugs.model;
+
+/**
+ * A uniform spatial hash grid of creatures, keyed on the centre of each creature's head.
+ * Each creature occupies a single cell, so moving a creature is an O(1) unlink and relink.
+ * <p>The centre of each head is recorded whenever a creature is added or updated, and radius searches
+ * only use the recorded centres. Searches do not change the grid, so any number of them can run at once
+ * while nothing is being added, removed or updated.
+ * <p>The grid is backed by flat arrays that only grow, so it does not allocate once warmed up.
+ * @author Luke
+ *
+ */
+class CreatureGrid {
+
+	private static final int EMPTY = -1;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final float cellSize;
+	private final int bucketMask;
+
+	// first slot in each bucket
+	private final int[] bucketHeads;
+
+	// per-slot state - slots are doubly-linked into their bucket
+	private Creature[] creatures = new Creature[INITIAL_CAPACITY];
+	private int[] buckets = new int[INITIAL_CAPACITY];
+	private int[] next = new int[INITIAL_CAPACITY];
+	private int[] previous = new int[INITIAL_CAPACITY];
+	private float[] centreX = new float[INITIAL_CAPACITY], centreY = new float[INITIAL_CAPACITY];
+	private int slotsUsed = 0;
+	private int freeSlot = EMPTY;
+
+	/**
+	 * Creates a new grid.
+	 * @param cellSize Width and height of each cell. This should be about the size of the largest creature.
+	 * @param buckets Number of hash buckets. Must be a power of two.
+	 */
+	CreatureGrid(float cellSize, int buckets) {
+		if(cellSize <= 0f) throw new IllegalArgumentException("cell size must be positive");
+		if(buckets <= 0 || (buckets & (buckets - 1)) != 0)
+			throw new IllegalArgumentException("bucket count must be a power of two");
+
+		this.cellSize = cellSize;
+		this.bucketMask = buckets - 1;
+		this.bucketHeads = new int[buckets];
+
+		for(int i = 0; i < buckets; i++) bucketHeads[i] = EMPTY;
+	}
+
+	/**
+	 * Adds a creature to this grid at the current position of its head.
+	 * @param c Creature to add.
+	 */
+	void add(Creature c) {
+		if(c.gridSlot != EMPTY) throw new IllegalStateException("creature is already in grid");
+
+		int slot;
+		if(freeSlot != EMPTY) {
+			slot = freeSlot;
+			freeSlot = next[slot];
+		}
+		else {
+			if(slotsUsed == creatures.length) grow();
+			slot = slotsUsed++;
+		}
+
+		creatures[slot] = c;
+		c.gridSlot = slot;
+		link(slot, getBucket(slot, c.getHeadBox()));
+	}
+
+	/**
+	 * Removes a creature from this grid. Does nothing if the creature is not in this grid.
+	 * @param c Creature to remove.
+	 */
+	void remove(Creature c) {
+		int slot = c.gridSlot;
+		if(slot == EMPTY || creatures[slot] != c) return;
+
+		unlink(slot);
+		creatures[slot] = null;
+		next[slot] = freeSlot;
+		freeSlot = slot;
+		c.gridSlot = EMPTY;
+	}
+
+	/**
+	 * Moves a creature to the cell containing the current position of its head.
+	 * This must be called every time the creature moves.
+	 * @param c Creature that has moved.
+	 */
+	void update(Creature c) {
+		int slot = c.gridSlot;
+		if(slot == EMPTY) throw new IllegalStateException("creature is not in grid");
+
+		int bucket = getBucket(slot, c.getHeadBox());
+
+		if(bucket != buckets[slot]) {
+			unlink(slot);
+			link(slot, bucket);
+		}
+	}
+
+	/**
+	 * Gets the centre of a creature's head as of the last time it was added or updated.
+	 * @param c Creature in this grid.
+	 * @param result Point to set to the centre.
+	 * @return The point passed in.
+	 */
+	Point getCentre(Creature c, Point result) {
+		int slot = c.gridSlot;
+		if(slot == EMPTY) throw new IllegalStateException("creature is not in grid");
+
+		result.set(centreX[slot], centreY[slot]);
+		return result;
+	}
+
+	/**
+	 * Finds the creature of one of the specified types whose head centre is nearest to a point.
+	 * @param x x coordinate of the point.
+	 * @param y y coordinate of the point.
+	 * @param radius Maximum distance from the point to the centre of the creature's head.
+	 * @param typeMask Mask of {@link CreatureType} bits for the creatures to consider.
+	 * @return Nearest creature or null if there are no matching creatures within the radius.
+	 * When several creatures are equally near, the creature with the lowest id is returned.
+	 */
+	Creature findNearest(float x, float y, float radius, int typeMask) {
+		return search(x, y, radius, typeMask, false);
+	}
+	
+	/**
+	 * Determines if there are any creatures of the specified types whose head centre is within a radius of a point.
+	 * @param x x coordinate of the point.
+	 * @param y y coordinate of the point.
+	 * @param radius Maximum distance from the point to the centre of the creature's head.
+	 * @param typeMask Mask of {@link CreatureType} bits for the creatures to consider.
+	 * @return True if any matching creature is within the radius.
+	 */
+	boolean isAnyWithin(float x, float y, float radius, int typeMask) {
+		return search(x, y, radius, typeMask, true) != null;
+	}
+
+	/**
+	 * Removes all creatures from this grid.
+	 */
+	void clear() {
+		for(int i = 0; i < slotsUsed; i++) {
+			if(creatures[i] != null) creatures[i].gridSlot = EMPTY;
+			creatures[i] = null;
+		}
+
+		for(int b = 0; b < bucketHeads.length; b++) bucketHeads[b] = EMPTY;
+
+		slotsUsed = 0;
+		freeSlot = EMPTY;
+	}
+
+	/**
+	 * Searches the cells covered by a circle for matching creatures.
+	 * Creatures are keyed on the centre of their head so no margin is needed.
+	 * Distinct cells can hash to the same bucket so a bucket may be searched twice; that cannot change
+	 * the result, and it keeps all search state local so that searches can run concurrently.
+	 * @param stopAtFirst If true, returns the first match found rather than the nearest.
+	 */
+	private Creature search(float x, float y, float radius, int typeMask, boolean stopAtFirst) {
+		int minX = getCell(x - radius);
+		int minY = getCell(y - radius);
+		int columns = getCell(x + radius) - minX + 1;
+		int rows = getCell(y + radius) - minY + 1;
+
+		// when the circle covers more cells than there are buckets, just scan every bucket once
+		boolean isScan = (long)columns * (long)rows > bucketHeads.length;
+		int searches = isScan ? bucketHeads.length : columns * rows;
+
+		Creature nearest = null;
+		float nearestDistanceSquared = radius * radius;
+
+		for(int i = 0; i < searches; i++) {
+			int bucket = isScan ? i : hash(minX + i / rows, minY + i % rows);
+
+			for(int slot = bucketHeads[bucket]; slot != EMPTY; slot = next[slot]) {
+				Creature c = creatures[slot];
+				if(!c.getType().isIn(typeMask)) continue;
+
+				float dx = centreX[slot] - x;
+				float dy = centreY[slot] - y;
+				float distanceSquared = dx * dx + dy * dy;
+
+				if(distanceSquared > nearestDistanceSquared) continue;
+				if(distanceSquared == nearestDistanceSquared && nearest != null && nearest.id < c.id) continue;
+
+				if(stopAtFirst) return c;
+				nearest = c;
+				nearestDistanceSquared = distanceSquared;
+			}
+		}
+
+		return nearest;
+	}
+
+	/**
+	 * Gets the bucket for a head box and records the centre of the slot.
+	 */
+	private int getBucket(int slot, Box b) {
+		centreX[slot] = b.getLeft() + (b.getRight() - b.getLeft()) / 2f;
+		centreY[slot] = b.getBottom() + (b.getTop() - b.getBottom()) / 2f;
+
+		return hash(getCell(centreX[slot]), getCell(centreY[slot]));
+	}
+
+	private int getCell(float coordinate) {
+		return (int)Math.floor(coordinate / cellSize);
+	}
+
+	private int hash(int x, int y) {
+		return ((x * 73856093) ^ (y * 19349663)) & bucketMask;
+	}
+
+	private void link(int slot, int bucket) {
+		int head = bucketHeads[bucket];
+
+		buckets[slot] = bucket;
+		previous[slot] = EMPTY;
+		next[slot] = head;
+		if(head != EMPTY) previous[head] = slot;
+		bucketHeads[bucket] = slot;
+	}
+
+	private void unlink(int slot) {
+		int p = previous[slot];
+		int n = next[slot];
+
+		if(p != EMPTY) next[p] = n;
+		else bucketHeads[buckets[slot]] = n;
+
+		if(n != EMPTY) previous[n] = p;
+	}
+
+	private void grow() {
+		int capacity = creatures.length * 2;
+
+		Creature[] newCreatures = new Creature[capacity];
+		System.arraycopy(creatures, 0, newCreatures, 0, slotsUsed);
+		creatures = newCreatures;
+
+		buckets = copyOf(buckets, capacity);
+		next = copyOf(next, capacity);
+		previous = copyOf(previous, capacity);
+		centreX = copyOf(centreX, capacity);
+		centreY = copyOf(centreY, capacity);
+	}
+
+	private int[] copyOf(int[] array, int capacity) {
+		int[] copy = new int[capacity];
+		System.arraycopy(array, 0, copy, 0, slotsUsed);
+		return copy;
+	}
+
+	private float[] copyOf(float[] array, int capacity) {
+		float[] copy = new float[capacity];
+		System.arraycopy(array, 0, copy, 0, slotsUsed);
+		return copy;
+	}
+}
@@ -0,0 +1,232 @@
+package com.supergreenowl.slugs.model;
+
+import java.util.Iterator;
+
+/**
+ * Every creature in a world, packed into dense arrays so that adding and removing a creature is O(1)
+ * however many creatures there are.
+ * <p>Each creature knows its slot, so removing it moves the creature in the last slot into its place.
+ * Creatures are also kept in a dense array for each of their components, in the same way, so systems that
+ * only apply to one component can walk just those creatures. Removing creatures changes the order of the
+ * rest, but only ever in the same way for the same adds and removes.
+ * <p>Every creature that has been in the registry keeps its id, which indexes a table of creatures, for as
+ * long as the registry exists. Creatures also have a handle, which is their id with a generation that is
+ * incremented each time they are removed, so a handle only resolves while the creature stays in the world
+ * and not after it has been returned to its nest and spawned again.
+ * @author Luke
+ *
+ */
+class CreatureRegistry implements Iterable<Creature> {
+
+	/**
+	 * Slot, id and handle for no creature.
+	 */
+	static final int NONE = -1;
+
+	private static final int INITIAL_CAPACITY = 32;
+
+	// handles are the id with a generation above it
+	private static final int ID_BITS = 20;
+	private static final int ID_MASK = (1 << ID_BITS) - 1;
+	private static final int GENERATION_MASK = (1 << (31 - ID_BITS)) - 1;
+
+	private static final CreatureComponent[] COMPONENTS = CreatureComponent.values();
+
+	private Creature[] creatures = new Creature[INITIAL_CAPACITY];
+	private int size = 0;
+
+	// dense array of creatures with each component
+	private final Creature[][] members = new Creature[COMPONENTS.length][INITIAL_CAPACITY];
+	private final int[] memberCounts = new int[COMPONENTS.length];
+
+	// every creature that has been in this registry, by id
+	private Creature[] creaturesById = new Creature[INITIAL_CAPACITY];
+	private int idCount = 0;
+
+	private final CreatureIterator iterator = new CreatureIterator(this);
+
+	/**
+	 * Adds a creature, giving it an id if it has never been in this registry.
+	 * @param c Creature to add. Must not already be in this registry.
+	 */
+	void add(Creature c) {
+		if(c.registrySlot != NONE) throw new IllegalStateException("creature is already registered");
+
+		if(c.id == NONE) {
+			if(idCount > ID_MASK) throw new IllegalStateException("too many creatures");
+			if(idCount == creaturesById.length) creaturesById = copyOf(creaturesById, idCount * 2);
+			c.id = idCount;
+			creaturesById[idCount++] = c;
+		}
+
+		if(size == creatures.length) creatures = copyOf(creatures, size * 2);
+		c.registrySlot = size;
+		creatures[size++] = c;
+
+		int components = c.getType().getComponents();
+		for(int i = 0; i < COMPONENTS.length; i++) {
+			if((components & (1 << i)) == 0) continue;
+
+			int count = memberCounts[i];
+			if(count == members[i].length) members[i] = copyOf(members[i], count * 2);
+			c.componentSlots[i] = count;
+			members[i][count] = c;
+			memberCounts[i] = count + 1;
+		}
+	}
+
+	/**
+	 * Removes a creature, invalidating its handle.
+	 * @param c Creature to remove.
+	 * @return True if the creature was removed, false if it was not in this registry.
+	 */
+	boolean remove(Creature c) {
+		int slot = c.registrySlot;
+		if(slot == NONE || creatures[slot] != c) return false;
+
+		Creature last = creatures[--size];
+		creatures[slot] = last;
+		last.registrySlot = slot;
+		creatures[size] = null;
+		c.registrySlot = NONE;
+
+		int components = c.getType().getComponents();
+		for(int i = 0; i < COMPONENTS.length; i++) {
+			if((components & (1 << i)) == 0) continue;
+
+			Creature[] array = members[i];
+			int memberSlot = c.componentSlots[i];
+			int count = --memberCounts[i];
+			Creature lastMember = array[count];
+			array[memberSlot] = lastMember;
+			lastMember.componentSlots[i] = memberSlot;
+			array[count] = null;
+			c.componentSlots[i] = NONE;
+		}
+
+		c.generation = (c.generation + 1) & GENERATION_MASK;
+		return true;
+	}
+
+	/**
+	 * Removes every creature, invalidating their handles. Creatures keep their ids.
+	 */
+	void clear() {
+		while(size > 0) remove(creatures[size - 1]);
+	}
+
+	/**
+	 * Gets the number of creatures.
+	 * @return Number of creatures.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Gets a creature by its slot.
+	 * @param slot Slot from 0 to {@link #size()} - 1.
+	 * @return Creature.
+	 */
+	Creature get(int slot) {
+		return creatures[slot];
+	}
+
+	/**
+	 * Gets the number of creatures with a component.
+	 * @param component Component.
+	 * @return Number of creatures.
+	 */
+	int size(CreatureComponent component) {
+		return memberCounts[component.ordinal()];
+	}
+
+	/**
+	 * Gets a creature with a component by its slot among the creatures with that component.
+	 * @param component Component.
+	 * @param slot Slot from 0 to {@link #size(CreatureComponent)} - 1.
+	 * @return Creature.
+	 */
+	Creature get(CreatureComponent component, int slot) {
+		return members[component.ordinal()][slot];
+	}
+
+	/**
+	 * Gets a creature that has been in this registry by its id, whether or not it still is.
+	 * @param id Creature id.
+	 * @return Creature or null if no creature has had that id.
+	 */
+	Creature getById(int id) {
+		if(id < 0 || id >= idCount) return null;
+		return creaturesById[id];
+	}
+
+	/**
+	 * Gets the creature that a handle refers to, if it is still in this registry.
+	 * @param handle Creature handle, or {@link #NONE}.
+	 * @return Creature or null if the creature has been removed since the handle was taken.
+	 */
+	Creature resolve(int handle) {
+		if(handle < 0) return null;
+
+		Creature c = getById(handle & ID_MASK);
+		if(c == null || c.registrySlot == NONE || c.generation != handle >>> ID_BITS) return null;
+		return c;
+	}
+
+	/**
+	 * Gets the handle of a creature as it is now.
+	 * @param c Creature that has been in this registry.
+	 * @return Handle.
+	 */
+	static int getHandle(Creature c) {
+		return (c.generation << ID_BITS) | c.id;
+	}
+
+	/**
+	 * Gets an iterator over every creature, reusing the same iterator each time.
+	 * Nested or concurrent iteration is not supported.
+	 */
+	@Override
+	public Iterator<Creature> iterator() {
+		iterator.index = 0;
+		return iterator;
+	}
+
+	private static Creature[] copyOf(Creature[] a, int length) {
+		Creature[] copy = new Creature[length];
+		System.arraycopy(a, 0, copy, 0, a.length);
+		return copy;
+	}
+
+	/**
+	 * Iterates over every creature in a registry.
+	 * @author Luke
+	 *
+	 */
+	private static class CreatureIterator implements Iterator<Creature> {
+
+		private final CreatureRegistry registry;
+		private int index = 0;
+
+		CreatureIterator(CreatureRegistry registry) {
+			this.registry = registry;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < registry.size;
+		}
+
+		@Override
+		public Creature next() {
+			if(index >= registry.size) return null;
+			return registry.creatures[index++];
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.supergreenowl.slugs.model;
+
+/**
+ * The kinds of creature in a world. Each type has a bit so that sets of types can be passed around as a mask.
+ * <p>Each type also has the set of components that every creature of that type has, so adding a type only
+ * means saying what it is made of rather than teaching the world about it.
+ * @author Luke
+ *
+ */
+public enum CreatureType {
+	WORKER(CreatureComponent.EDIBLE, CreatureComponent.EATS_LINES),
+	LAYER(CreatureComponent.EATS_CREATURES),
+	RUNNER(CreatureComponent.EDIBLE, CreatureComponent.EATS_CREATURES);
+
+	/**
+	 * Mask including every type of creature.
+	 */
+	public static final int ALL = (1 << values().length) - 1;
+
+	private final int components;
+
+	private CreatureType(CreatureComponent... components) {
+		int mask = 0;
+		for(CreatureComponent c : components) mask |= c.getMask();
+		this.components = mask;
+	}
+
+	/**
+	 * Gets the mask bit for this type.
+	 * @return Bit for this type.
+	 */
+	public int getMask() {
+		return 1 << ordinal();
+	}
+
+	/**
+	 * Determines if this type is in a mask.
+	 * @param mask Mask of types.
+	 * @return True if this type's bit is set in the mask.
+	 */
+	public boolean isIn(int mask) {
+		return (mask & getMask()) != 0;
+	}
+
+	/**
+	 * Determines if creatures of this type have a component.
+	 * @param component Component.
+	 * @return True if they do.
+	 */
+	public boolean has(CreatureComponent component) {
+		return (components & component.getMask()) != 0;
+	}
+
+	/**
+	 * Gets the components of creatures of this type.
+	 * @return Mask of {@link CreatureComponent} bits.
+	 */
+	public int getComponents() {
+		return components;
+	}
+}
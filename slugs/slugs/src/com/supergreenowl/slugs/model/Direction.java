@@ -1,46 +1,84 @@
 package com.supergreenowl.slugs.model;
 
+/**
+ * The four directions that creatures and lines can face.
+ * <p>Everything about each direction is also kept in tables indexed by {@link #ordinal()}, so geometry can
+ * be moved in any direction with arithmetic rather than a switch. Directions that creatures and lines face
+ * change from one to the next with no pattern, so a switch on them is often mispredicted.
+ * The masks are 1 or 0, so multiplying finite values by them picks out one edge or axis exactly.
+ * @author Luke
+ *
+ */
 public enum Direction {
 	UP,
 	DOWN,
 	LEFT,
 	RIGHT;
 
+	/**
+	 * Axis index for directions along the x axis.
+	 */
+	static final int X = 0;
+
+	/**
+	 * Axis index for directions along the y axis.
+	 */
+	static final int Y = 1;
+
+	private static final Direction[] VALUES = values();
+
+	/**
+	 * Unit vector of each direction.
+	 */
+	static final float[] DX = { 0f, 0f, -1f, 1f }, DY = { 1f, -1f, 0f, 0f };
+
+	/**
+	 * Sign of each direction along its axis: 1 for UP and RIGHT and -1 for DOWN and LEFT.
+	 */
+	static final float[] SIGN = { 1f, -1f, -1f, 1f };
+
+	/**
+	 * Axis of each direction, {@link #X} or {@link #Y}.
+	 */
+	static final int[] AXIS = { Y, Y, X, X };
+
+	/**
+	 * Masks for directions along each axis.
+	 */
+	static final float[] ALONG_X = { 0f, 0f, 1f, 1f }, ALONG_Y = { 1f, 1f, 0f, 0f };
+
+	/**
+	 * Masks for the edge of a box that each direction faces - the left edge faces LEFT and so on.
+	 */
+	static final float[] FACES_LEFT = { 0f, 0f, 1f, 0f }, FACES_RIGHT = { 0f, 0f, 0f, 1f },
+			FACES_DOWN = { 0f, 1f, 0f, 0f }, FACES_UP = { 1f, 0f, 0f, 0f };
+
+	/**
+	 * Ordinal of the opposite of each direction.
+	 */
+	static final int[] OPPOSITE = { 1, 0, 3, 2 };
+
+	/**
+	 * Ordinal of the direction anti-clockwise to each direction.
+	 */
+	static final int[] ANTI_CLOCKWISE = { 2, 3, 1, 0 };
+
 	/**
 	 * Gets the direction that is anti-clockwise to this direction.
 	 * @return
 	 */
 	public Direction getDirectionAntiClockwise() {
-		switch(this) {
-		case UP: return LEFT;
-		case LEFT: return DOWN;
-		case DOWN: return RIGHT;
-		case RIGHT: return UP;
-		}
-
-		return this;
+		return VALUES[ANTI_CLOCKWISE[ordinal()]];
 	}
 
 	public boolean isHorizontal() {
-		switch(this) {
-		case UP: return false;
-		case LEFT: return true;
-		case DOWN: return false;
-		case RIGHT: return true;
-		default: return false;
-		}
+		return AXIS[ordinal()] == X;
 	}
-	
+
 	public boolean isOpposite(Direction other) {
-		switch(this) {
-		case UP: return other == DOWN;
-		case LEFT: return other == RIGHT;
-		case DOWN: return other == UP;
-		case RIGHT: return other == LEFT;
-		default: return false;
-		}
+		return other == VALUES[OPPOSITE[ordinal()]];
 	}
-	
+
 	/**
 	 * Converts a scalar distance to vector displacement in this direction.
 	 * The displacement is negative when this direction is LEFT or DOWN and positive otherwise.
@@ -48,8 +86,6 @@ public enum Direction {
 	 * @return Vector displacement.
 	 */
 	public float getDisplacement(float distance) {
-		return this == Direction.LEFT || this == Direction.DOWN ?
-				distance * -1f
-				: distance;
+		return distance * SIGN[ordinal()];
 	}
 }
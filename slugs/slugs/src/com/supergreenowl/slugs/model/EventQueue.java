@@ -0,0 +1,187 @@
+package com.supergreenowl.slugs.model;
+
+/**
+ * Priority queue of event times keyed by small non-negative ints. Each key has at most one event
+ * and its time can be changed in place, so sources of events can be rescheduled without searching.
+ * <p>Implemented as a binary min-heap of keys with a position lookup per key.
+ * @author Luke
+ *
+ */
+class EventQueue {
+
+	private static final int ABSENT = -1;
+	private static final int INITIAL_CAPACITY = 32;
+
+	// heap of keys ordered by time
+	private int[] heap = new int[INITIAL_CAPACITY];
+	private int size = 0;
+
+	// data by key
+	private float[] times = new float[INITIAL_CAPACITY];
+	private int[] positions = newPositions(INITIAL_CAPACITY);
+
+	/**
+	 * Gets the number of scheduled events.
+	 * @return Number of events.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Determines if an event is scheduled for a key.
+	 * @param key Event key.
+	 * @return True if the key has an event.
+	 */
+	boolean contains(int key) {
+		return key < positions.length && positions[key] != ABSENT;
+	}
+
+	/**
+	 * Gets the time of the event for a key.
+	 * @param key Event key. Must have an event.
+	 * @return Event time.
+	 */
+	float getTime(int key) {
+		if(!contains(key)) throw new IllegalArgumentException("no event for key");
+		return times[key];
+	}
+
+	/**
+	 * Schedules the event for a key, replacing any existing event for that key.
+	 * @param key Event key.
+	 * @param time Event time.
+	 */
+	void set(int key, float time) {
+		if(key < 0) throw new IllegalArgumentException("key must not be negative");
+		if(key >= positions.length) growKeys(key + 1);
+
+		int position = positions[key];
+
+		if(position == ABSENT) {
+			if(size == heap.length) heap = copyOf(heap, size * 2);
+			position = size++;
+			heap[position] = key;
+			positions[key] = position;
+			times[key] = time;
+			siftUp(position);
+		}
+		else {
+			float oldTime = times[key];
+			times[key] = time;
+
+			if(time < oldTime) siftUp(position);
+			else siftDown(position);
+		}
+	}
+
+	/**
+	 * Removes the event for a key. Does nothing if the key has no event.
+	 * @param key Event key.
+	 */
+	void remove(int key) {
+		if(!contains(key)) return;
+
+		int position = positions[key];
+		positions[key] = ABSENT;
+		size--;
+
+		if(position == size) return;
+
+		// move the last key into the gap and restore heap order around it
+		int last = heap[size];
+		heap[position] = last;
+		positions[last] = position;
+		siftUp(position);
+		siftDown(positions[last]);
+	}
+
+	/**
+	 * Gets the key of the earliest event.
+	 * @return Key or -1 if there are no events.
+	 */
+	int peek() {
+		return size == 0 ? ABSENT : heap[0];
+	}
+
+	/**
+	 * Gets the time of the earliest event.
+	 * @return Time or {@link Float#MAX_VALUE} if there are no events.
+	 */
+	float peekTime() {
+		return size == 0 ? Float.MAX_VALUE : times[heap[0]];
+	}
+
+	/**
+	 * Removes all events.
+	 */
+	void clear() {
+		for(int i = 0; i < size; i++) positions[heap[i]] = ABSENT;
+		size = 0;
+	}
+
+	private void siftUp(int position) {
+		int key = heap[position];
+		float time = times[key];
+
+		while(position > 0) {
+			int parent = (position - 1) >>> 1;
+			int parentKey = heap[parent];
+			if(times[parentKey] <= time) break;
+
+			heap[position] = parentKey;
+			positions[parentKey] = position;
+			position = parent;
+		}
+
+		heap[position] = key;
+		positions[key] = position;
+	}
+
+	private void siftDown(int position) {
+		int key = heap[position];
+		float time = times[key];
+
+		while(true) {
+			int child = 2 * position + 1;
+			if(child >= size) break;
+
+			if(child + 1 < size && times[heap[child + 1]] < times[heap[child]]) child++;
+
+			int childKey = heap[child];
+			if(times[childKey] >= time) break;
+
+			heap[position] = childKey;
+			positions[childKey] = position;
+			position = child;
+		}
+
+		heap[position] = key;
+		positions[key] = position;
+	}
+
+	private void growKeys(int minCapacity) {
+		int capacity = positions.length;
+		while(capacity < minCapacity) capacity *= 2;
+
+		float[] newTimes = new float[capacity];
+		System.arraycopy(times, 0, newTimes, 0, times.length);
+		times = newTimes;
+
+		int[] newPositions = newPositions(capacity);
+		System.arraycopy(positions, 0, newPositions, 0, positions.length);
+		positions = newPositions;
+	}
+
+	private static int[] newPositions(int capacity) {
+		int[] array = new int[capacity];
+		for(int i = 0; i < capacity; i++) array[i] = ABSENT;
+		return array;
+	}
+
+	private static int[] copyOf(int[] array, int capacity) {
+		int[] copy = new int[capacity];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, capacity));
+		return copy;
+	}
+}
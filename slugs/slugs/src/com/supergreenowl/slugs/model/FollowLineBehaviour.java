@@ -5,7 +5,7 @@ import com.supergreenowl.sgdx.Resettable;
 public class FollowLineBehaviour implements CreatureBehaviour, Resettable {
 
 	private final Creature creature;
-	private Line line = null;
+	private int line = LineStore.NONE;
 	
 	private boolean isCentred = false;
 	private float threshold;
@@ -17,15 +17,17 @@ public class FollowLineBehaviour implements CreatureBehaviour, Resettable {
 	
 	@Override
 	public void think() {
-		if(line == null) throw new IllegalStateException("Cannot follow null line");
+		if(line == LineStore.NONE) throw new IllegalStateException("Cannot follow null line");
 		
-		Direction d = line.getDirection();
+		LineStore lines = creature.getWorld().getLines();
+		int index = lines.getIndex(line);
+		Direction d = lines.getDirection(index);
 		
 		if(!isCentred) {
 			float difference = 0f;
 			if(d.isHorizontal())
-				difference = Math.abs(creature.getHead().getPosition().getY() - line.getStartY());
-			else difference = Math.abs(creature.getHead().getPosition().getX() - line.getStartX());
+				difference = Math.abs(creature.getHeadPosition().getY() - lines.getStartY(index));
+			else difference = Math.abs(creature.getHeadPosition().getX() - lines.getStartX(index));
 			
 			if(difference <= threshold) isCentred = true;
 		}
@@ -33,18 +35,68 @@ public class FollowLineBehaviour implements CreatureBehaviour, Resettable {
 		if(isCentred) creature.turn(d);
 	}
 	
-	public void setLine(Line line) {
+	@Override
+	public float getTimeToNextDecision() {
+		if(!hasLine()) return 0f;
+		
+		LineStore lines = creature.getWorld().getLines();
+		int index = lines.getIndex(line);
+		Direction d = lines.getDirection(index);
+		Point p = creature.getHeadPosition();
+		Direction current = creature.getDirection();
+		float speed = creature.getSpeed();
+		if(speed <= 0f) return NEVER;
+		
+		// a creature close enough to the line is centred on its next think
+		float offset = d.isHorizontal() ? lines.getStartY(index) - p.getY() : lines.getStartX(index) - p.getX();
+		
+		if(!isCentred && Math.abs(offset) > threshold) {
+			// creature lines up with the line by moving across it
+			boolean isApproaching = (current == Direction.UP && offset > 0f)
+					|| (current == Direction.DOWN && offset < 0f)
+					|| (current == Direction.RIGHT && offset > 0f)
+					|| (current == Direction.LEFT && offset < 0f);
+			if(current.isHorizontal() == d.isHorizontal() || !isApproaching) return NEVER;
+			
+			return (Math.abs(offset) - threshold) / speed;
+		}
+		
+		if(current != d) return current.isOpposite(d) ? NEVER : 0f;
+		
+		// following the line - stops when the end is reached
+		float remaining;
+		switch(d) {
+		case UP: remaining = lines.getEndY(index) - p.getY(); break;
+		case DOWN: remaining = p.getY() - lines.getEndY(index); break;
+		case LEFT: remaining = p.getX() - lines.getEndX(index); break;
+		default: remaining = lines.getEndX(index) - p.getX(); break;
+		}
+		
+		// once past the end nothing changes until the line goes
+		return remaining > 0f ? remaining / speed : NEVER;
+	}
+	
+	/**
+	 * Sets the line to follow.
+	 * @param line Line handle or {@link LineStore#NONE}.
+	 */
+	public void setLine(int line) {
 		this.line = line;
 		isCentred = false;
 	}
 	
+	/**
+	 * Determines if there is a line to follow. The handle of a line that has been eaten by another
+	 * worker never refers to another line, so the line can be kept until it is gone.
+	 * @return True if the line is still in the world.
+	 */
 	public boolean hasLine() {
-		return line != null && line.getLength() >= 0f;
+		return creature.getWorld().getLines().isLive(line);
 	}
 
 	@Override
 	public void reset() {
-		line = null;
+		line = LineStore.NONE;
 		isCentred = false;
 		// Not resetting creature. Behaviour will stay with creature.
 	}
@@ -13,9 +13,12 @@ public class FollowWaypointsBehaviour implements CreatureBehaviour, Resettable {
 	private static final int MIN_WAYPOINTS = 2;
 	private static final int MAX_WAYPOINTS = 5;
 	
+	// number of waypoints is chosen when first needed as the creature's random source is only seeded when it joins a world
+	private static final int UNKNOWN = -1;
+	
 	private Creature creature;
 	
-	private int totalWaypoints;
+	private int totalWaypoints = UNKNOWN;
 	private int currentWaypoint = 0;
 	
 	private final Point waypoint = new Point(), halfway = new Point();
@@ -26,22 +29,21 @@ public class FollowWaypointsBehaviour implements CreatureBehaviour, Resettable {
 	
 	public FollowWaypointsBehaviour(Creature creature) {
 		this.creature = creature;
-		totalWaypoints = World.generator.nextInt(MAX_WAYPOINTS) + MIN_WAYPOINTS;
 	}
 	
 	@Override
 	public void think() {
 
 		// if final waypoint has been reached, keep going on current course
-		if(currentWaypoint >= totalWaypoints) return;
+		if(currentWaypoint >= getTotalWaypoints()) return;
 		
 		// Choose initial waypoint
 		if(!isFirstPointSet) pickNextDestination();
 		
-		Point start = creature.getHead().getPosition();
+		Point start = creature.getHeadPosition();
 		Point target = isNavigatingToHalfwayPoint ? halfway : waypoint;
 		
-		if(creature.getHead().contains(target)) {
+		if(creature.getHeadBox().contains(target)) {
 			if(isNavigatingToHalfwayPoint) {
 				isNavigatingToHalfwayPoint = false;
 				target = waypoint;
@@ -49,17 +51,50 @@ public class FollowWaypointsBehaviour implements CreatureBehaviour, Resettable {
 			else pickNextDestination();
 		}
 		
-		if(currentWaypoint <= totalWaypoints) {
+		if(currentWaypoint <= getTotalWaypoints()) {
 			direction = Navigator.navigate(start, target);
 			creature.turn(direction);
 		}
 	}
 
+	@Override
+	public float getTimeToNextDecision() {
+		if(currentWaypoint >= getTotalWaypoints()) return NEVER;
+		if(!isFirstPointSet) return 0f;
+		
+		Point start = creature.getHeadPosition();
+		Point target = isNavigatingToHalfwayPoint ? halfway : waypoint;
+		Direction d = creature.getDirection();
+		float speed = creature.getSpeed();
+		if(speed <= 0f) return NEVER;
+		
+		// distance to target ahead of the creature and to the side of it
+		float ahead, across;
+		if(d.isHorizontal()) {
+			ahead = target.getX() - start.getX();
+			across = Math.abs(target.getY() - start.getY());
+		}
+		else {
+			ahead = target.getY() - start.getY();
+			across = Math.abs(target.getX() - start.getX());
+		}
+		if(d == Direction.LEFT || d == Direction.DOWN) ahead = -ahead;
+		
+		// navigation changes when the target passes the head or when distance ahead and across are equal
+		float halfSize = creature.getHeadSize() / 2f;
+		float time = getTimeToReach(ahead, across, speed);
+		time = Math.min(time, getTimeToReach(ahead, 0f, speed));
+		time = Math.min(time, getTimeToReach(ahead, -across, speed));
+		time = Math.min(time, getTimeToReach(ahead, halfSize, speed));
+		time = Math.min(time, getTimeToReach(ahead, -halfSize, speed));
+		return time;
+	}
+	
 	/**
 	 * Replots the course from current creature location to current waypoint.
 	 */
 	public void recalculateCourse() {
-		if(currentWaypoint >= totalWaypoints) return;
+		if(currentWaypoint >= getTotalWaypoints()) return;
 		if(waypoint != null) calculateHalfwayPoint();
 	}
 	
@@ -71,12 +106,12 @@ public class FollowWaypointsBehaviour implements CreatureBehaviour, Resettable {
 		
 		isFirstPointSet = true;
 		
-		if(++currentWaypoint > totalWaypoints) {
+		if(++currentWaypoint > getTotalWaypoints()) {
 			isNavigatingToHalfwayPoint = false;
 			return;
 		}
 		
-		creature.getWorld().getNavigator().setToRandomPoint(waypoint);
+		creature.getWorld().getNavigator().setToRandomPoint(waypoint, creature.getRandom());
 		calculateHalfwayPoint();
 	}
 	
@@ -84,7 +119,7 @@ public class FollowWaypointsBehaviour implements CreatureBehaviour, Resettable {
 	 * Calculates the halfway-point for the creature to reach current destination. 
 	 */
 	private void calculateHalfwayPoint() {
-		Point start = creature.getHead().getPosition();
+		Point start = creature.getHeadPosition();
 
 		float xMagnitude = Math.abs(waypoint.getX() - start.getX());
 		float yMagnitude = Math.abs(waypoint.getY() - start.getY());
@@ -96,9 +131,26 @@ public class FollowWaypointsBehaviour implements CreatureBehaviour, Resettable {
 		else halfway.setX(start.getX());
 	}
 
+	/**
+	 * Gets the number of waypoints to visit, choosing it at random if it has not been chosen yet.
+	 */
+	private int getTotalWaypoints() {
+		if(totalWaypoints == UNKNOWN) {
+			totalWaypoints = creature.getRandom().nextInt(MAX_WAYPOINTS) + MIN_WAYPOINTS;
+		}
+		return totalWaypoints;
+	}
+
+	/**
+	 * Gets the time for a decreasing distance to fall to a level.
+	 */
+	private static float getTimeToReach(float distance, float level, float speed) {
+		return distance > level ? (distance - level) / speed : NEVER;
+	}
+
 	@Override
 	public void reset() {
-		totalWaypoints = World.generator.nextInt(MAX_WAYPOINTS) + MIN_WAYPOINTS;
+		totalWaypoints = UNKNOWN;
 		currentWaypoint = 0;
 		isFirstPointSet = false;
 		isNavigatingToHalfwayPoint = false;
@@ -11,7 +11,7 @@ public class Layer extends LineCreature {
 	private static final float HEIGHT = WIDTH * 3f;
 	
 	public Layer() {
-		super(WIDTH, HEIGHT, false, true);
+		super(CreatureType.LAYER, WIDTH, HEIGHT);
 	}
 
 }
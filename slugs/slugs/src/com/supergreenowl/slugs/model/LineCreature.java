@@ -7,14 +7,14 @@ package com.supergreenowl.slugs.model;
  */
 public abstract class LineCreature extends Creature {
 
-	private Line line = null;
+	private int line = LineStore.NONE;
 	
 	private final Point linePoint = new Point();
 	private boolean isLinePointSet = false;
 	private final Point previousPosition = new Point();
 	
-	public LineCreature(float width, float height, boolean canBeEaten, boolean canEatCreatures) {
-		super(width, height, canBeEaten, canEatCreatures);
+	public LineCreature(CreatureType type, float width, float height) {
+		super(type, width, height);
 	}
 
 	@Override
@@ -27,23 +27,30 @@ public abstract class LineCreature extends Creature {
 		super.move(time);
 		
 		updateLinePoint();
+	}
+	
+	@Override
+	void applyMove() {
+		super.applyMove();
 		
-		Direction currentDirection = getHead().getDirection();
-		if(line != null && currentDirection == line.getDirection()) {
+		Direction currentDirection = getDirection();
+		LineStore lines = getWorld().getLines();
+		
+		// the handle of a line that has gone has no index
+		int index = lines.getIndex(line);
+		if(index != LineStore.NONE && currentDirection == lines.getDirection(index)) {
 			// extend current slime
-			line.extend(getLastMoveDistance());
+			lines.extend(line, getLastMoveDistance());
 		}
 		else {
 			// either there is no line yet, or direction has changed
 			// create new line from prev. position to current position
 			
 			// No longer own previous line (if any)
-			if(line != null) line.setOwner(null);
+			if(index != LineStore.NONE) lines.setOwner(line, LineStore.NONE);
 			
-			line = getWorld().getLinePool().obtain();
-			line.set(previousPosition.getX(), previousPosition.getY(), linePoint.getX(), linePoint.getY(), currentDirection);
-			line.setOwner(this);
-			getWorld().addLine(line);
+			line = lines.add(previousPosition.getX(), previousPosition.getY(), linePoint.getX(), linePoint.getY(),
+					currentDirection, getHandle());
 		}
 	}
 	
@@ -51,10 +58,10 @@ public abstract class LineCreature extends Creature {
 	 * Removes the current line from this creature, if any.
 	 */
 	public void removeLine() {
-		if(line == null) return;
+		if(line == LineStore.NONE) return;
 		
-		line.setOwner(null);
-		line = null;
+		getWorld().getLines().setOwner(line, LineStore.NONE);
+		line = LineStore.NONE;
 	}
 	
 	@Override
@@ -66,7 +73,7 @@ public abstract class LineCreature extends Creature {
 	@Override
 	public void reset() {
 		super.reset();
-		line = null;
+		line = LineStore.NONE;
 		isLinePointSet = false;
 	}
 
@@ -75,17 +82,14 @@ public abstract class LineCreature extends Creature {
 	 * This point is a fixed distance of half creature width behind the front of the head.
 	 */
 	private void updateLinePoint() {
-		linePoint.set(getHead().getPosition());
+		linePoint.set(getHeadPosition());
 		
 		// if head size is greature than width, line point is not centre of head
-		float offset = (getHead().getSize() - getWidth()) / 2f;
+		float offset = (getHeadSize() - getWidth()) / 2f;
 		if(offset > 0f) {
-			Direction direction = getHead().getDirection();
-			
-			if(direction == Direction.RIGHT) linePoint.moveX(offset);
-			else if(direction == Direction.LEFT) linePoint.moveX(-1f * offset);
-			else if(direction == Direction.UP) linePoint.moveY(offset);
-			else if(direction == Direction.DOWN) linePoint.moveY(-1f * offset);
+			int d = getDirection().ordinal();
+			linePoint.moveX(offset * Direction.DX[d]);
+			linePoint.moveY(offset * Direction.DY[d]);
 		}
 		
 		isLinePointSet = true;
@@ -0,0 +1,271 @@
+package com.supergreenowl.slugs.model;
+
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Index of lines partitioned by axis. Horizontal lines are kept sorted by y and vertical lines sorted by x.
+ * <p>A line's sort coordinate never changes once it has been placed - extending or trimming a line only moves
+ * its end points along the line - so lines only need to be touched when they are added or removed.
+ * Queries binary search for the band of lines that an area covers and then check each line in the band
+ * against the area on the other axis.
+ * @author Luke
+ *
+ */
+class LineIndex {
+
+	private static final int INITIAL_CAPACITY = 32;
+
+	private final LineStore store;
+	private final Box lineBox = new Box();
+
+	private final Axis horizontal = new Axis(true);
+	private final Axis vertical = new Axis(false);
+	
+	private float hitDistance;
+
+	/**
+	 * Creates a new index of lines from a store.
+	 * @param store Store holding the indexed lines.
+	 */
+	LineIndex(LineStore store) {
+		this.store = store;
+	}
+
+	/**
+	 * Adds a line to this index.
+	 * @param line Handle of the line to add.
+	 */
+	void add(int line) {
+		int index = store.getIndex(line);
+		if(store.getDirection(index).isHorizontal()) horizontal.add(line, store.getStartY(index));
+		else vertical.add(line, store.getStartX(index));
+	}
+
+	/**
+	 * Removes a line from this index. Must be called before the line is removed from its store.
+	 * @param line Handle of the line to remove.
+	 */
+	void remove(int line) {
+		int index = store.getIndex(line);
+		if(store.getDirection(index).isHorizontal()) horizontal.remove(line, store.getStartY(index));
+		else vertical.remove(line, store.getStartX(index));
+	}
+
+	/**
+	 * Finds all lines that intersect an area.
+	 * @param area Area to search.
+	 * @param result Array to add matching line handles to. Existing contents are not cleared.
+	 */
+	void query(Box area, IntArray result) {
+		horizontal.query(area.getBottom(), area.getTop(), area, result);
+		vertical.query(area.getLeft(), area.getRight(), area, result);
+	}
+
+	/**
+	 * Finds the first line hit by a ray travelling in an axis-aligned direction.
+	 * Lines that cross the ray are found by walking outwards from the start of the ray through the lines
+	 * sorted on the axis the ray travels along, stopping at the first one that spans the ray.
+	 * Lines that lie along the ray are found by searching for lines with the same sort coordinate as the ray.
+	 * @param x x coordinate of the start of the ray.
+	 * @param y y coordinate of the start of the ray.
+	 * @param direction Direction the ray travels in.
+	 * @param maxDistance Length of the ray.
+	 * @param ignoredOwner Handle of the creature whose lines being laid are ignored or {@link LineStore#NONE}.
+	 * @return Handle of the nearest line or {@link LineStore#NONE} if no line is within the length of the ray.
+	 * The distance to the line is available from {@link #getHitDistance()}.
+	 */
+	int raycast(float x, float y, Direction direction, float maxDistance, int ignoredOwner) {
+		boolean isIncreasing = direction == Direction.RIGHT || direction == Direction.UP;
+		Axis across = direction.isHorizontal() ? vertical : horizontal;
+		Axis along = direction.isHorizontal() ? horizontal : vertical;
+		float start = direction.isHorizontal() ? x : y;
+		float position = direction.isHorizontal() ? y : x;
+		
+		hitDistance = maxDistance;
+		int nearest = across.castAcross(start, position, isIncreasing, ignoredOwner);
+		return along.castAlong(position, start, isIncreasing, ignoredOwner, nearest);
+	}
+	
+	/**
+	 * Gets the distance to the line found by the last call to {@link #raycast(float, float, Direction, float, int)}.
+	 * @return Distance along the ray.
+	 */
+	float getHitDistance() {
+		return hitDistance;
+	}
+	
+	/**
+	 * Removes all lines from this index.
+	 */
+	void clear() {
+		horizontal.clear();
+		vertical.clear();
+	}
+
+	/**
+	 * Lines parallel to one axis, sorted by their position on the other axis.
+	 */
+	private class Axis {
+
+		private final boolean isHorizontal;
+		private float[] keys = new float[INITIAL_CAPACITY];
+		private int[] lines = new int[INITIAL_CAPACITY];
+		private int size = 0;
+		
+		Axis(boolean isHorizontal) {
+			this.isHorizontal = isHorizontal;
+		}
+
+		void add(int line, float key) {
+			if(size == keys.length) grow();
+
+			int i = upperBound(key);
+			System.arraycopy(keys, i, keys, i + 1, size - i);
+			System.arraycopy(lines, i, lines, i + 1, size - i);
+			keys[i] = key;
+			lines[i] = line;
+			size++;
+		}
+
+		void remove(int line, float key) {
+			// scan the run of lines sharing this key for the line itself
+			for(int i = lowerBound(key); i < size && keys[i] == key; i++) {
+				if(lines[i] == line) {
+					size--;
+					System.arraycopy(keys, i + 1, keys, i, size - i);
+					System.arraycopy(lines, i + 1, lines, i, size - i);
+					return;
+				}
+			}
+
+			throw new IllegalStateException("line is not in index");
+		}
+
+		void query(float min, float max, Box area, IntArray result) {
+			for(int i = lowerBound(min); i < size && keys[i] <= max; i++) {
+				int line = lines[i];
+				if(area.intersects(store.getBoundingBox(store.getIndex(line), lineBox))) result.add(line);
+			}
+		}
+
+		/**
+		 * Finds the nearest line that crosses a ray travelling along the sort axis
+		 * and is no further than the current hit distance.
+		 * @param start Sort coordinate of the start of the ray.
+		 * @param position Coordinate of the ray on the other axis.
+		 * @param isIncreasing True if the ray travels towards higher sort coordinates.
+		 * @return Line handle or {@link LineStore#NONE}.
+		 */
+		int castAcross(float start, float position, boolean isIncreasing, int ignoredOwner) {
+			if(isIncreasing) {
+				for(int i = lowerBound(start); i < size && keys[i] - start <= hitDistance; i++) {
+					if(spans(i, position, ignoredOwner)) {
+						hitDistance = keys[i] - start;
+						return lines[i];
+					}
+				}
+			}
+			else {
+				for(int i = upperBound(start) - 1; i >= 0 && start - keys[i] <= hitDistance; i--) {
+					if(spans(i, position, ignoredOwner)) {
+						hitDistance = start - keys[i];
+						return lines[i];
+					}
+				}
+			}
+			
+			return LineStore.NONE;
+		}
+		
+		/**
+		 * Finds the nearest line lying along a ray that travels across the sort axis
+		 * and is nearer than the current hit distance.
+		 * @param key Sort coordinate of the ray.
+		 * @param start Coordinate of the start of the ray on the other axis.
+		 * @param isIncreasing True if the ray travels towards higher coordinates.
+		 * @param nearest Nearest line found so far or {@link LineStore#NONE}.
+		 * @return Handle of the nearest line, which may be the line passed in, or {@link LineStore#NONE}.
+		 */
+		int castAlong(float key, float start, boolean isIncreasing, int ignoredOwner, int nearest) {
+			for(int i = lowerBound(key); i < size && keys[i] == key; i++) {
+				int index = store.getIndex(lines[i]);
+				if(ignoredOwner != LineStore.NONE && store.getOwner(index) == ignoredOwner) continue;
+				
+				store.getBoundingBox(index, lineBox);
+				float min = isHorizontal ? lineBox.getLeft() : lineBox.getBottom();
+				float max = isHorizontal ? lineBox.getRight() : lineBox.getTop();
+				
+				float distance;
+				if(isIncreasing) {
+					if(max < start) continue;
+					distance = Math.max(0f, min - start);
+				}
+				else {
+					if(min > start) continue;
+					distance = Math.max(0f, start - max);
+				}
+				
+				if(distance < hitDistance || (distance == hitDistance && nearest == LineStore.NONE)) {
+					hitDistance = distance;
+					nearest = lines[i];
+				}
+			}
+			
+			return nearest;
+		}
+
+		void clear() {
+			size = 0;
+		}
+		
+		/**
+		 * Determines if the line at a position in this axis spans a coordinate on the other axis.
+		 */
+		private boolean spans(int i, float position, int ignoredOwner) {
+			int index = store.getIndex(lines[i]);
+			if(ignoredOwner != LineStore.NONE && store.getOwner(index) == ignoredOwner) return false;
+			
+			store.getBoundingBox(index, lineBox);
+			if(isHorizontal) return position >= lineBox.getLeft() && position <= lineBox.getRight();
+			return position >= lineBox.getBottom() && position <= lineBox.getTop();
+		}
+
+		/**
+		 * Gets the index of the first key that is greater than or equal to the specified key.
+		 */
+		private int lowerBound(float key) {
+			int low = 0, high = size;
+			while(low < high) {
+				int mid = (low + high) >>> 1;
+				if(keys[mid] < key) low = mid + 1;
+				else high = mid;
+			}
+			return low;
+		}
+
+		/**
+		 * Gets the index of the first key that is greater than the specified key.
+		 */
+		private int upperBound(float key) {
+			int low = 0, high = size;
+			while(low < high) {
+				int mid = (low + high) >>> 1;
+				if(keys[mid] <= key) low = mid + 1;
+				else high = mid;
+			}
+			return low;
+		}
+
+		private void grow() {
+			int capacity = keys.length * 2;
+
+			float[] newKeys = new float[capacity];
+			System.arraycopy(keys, 0, newKeys, 0, size);
+			keys = newKeys;
+
+			int[] newLines = new int[capacity];
+			System.arraycopy(lines, 0, newLines, 0, size);
+			lines = newLines;
+		}
+	}
+}
@@ -0,0 +1,376 @@
+package com.supergreenowl.slugs.model;
+
+/**
+ * Storage for all the lines in a world, kept as parallel arrays of primitives.
+ * <p>Lines are identified by an int handle which stays the same for as long as the line exists.
+ * Handles are a slot with a generation above it, and a slot's generation changes whenever its line is
+ * removed, so the handle of a removed line never refers to a later line that reuses the slot.
+ * Handles can therefore be kept for as long as is convenient and checked with {@link #getIndex(int)}.
+ * The data for live lines is packed densely at indexes {@code 0} to {@code size() - 1} so scans over
+ * every line are linear in memory; use {@link #getIndex(int)} and {@link #getHandle(int)} to convert
+ * between the two. Removing a line moves the last live line into its index.
+ * <p>New lines are pending and are not part of the live lines until {@link #flush()} is called.
+ * This lets lines be created while the live lines are being scanned.
+ * @author Luke
+ *
+ */
+public class LineStore {
+
+	/**
+	 * Handle, index or owner value for no line or no owner.
+	 */
+	public static final int NONE = -1;
+	
+	/**
+	 * Returned by {@link #removeIntersection(int, Box)} when the end of a line was removed.
+	 */
+	static final int END_REMOVED = -2;
+
+	private static final int INITIAL_CAPACITY = 32;
+	
+	// handles are the slot with a generation above it
+	private static final int SLOT_BITS = 20;
+	private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+	private static final int GENERATION_MASK = (1 << (31 - SLOT_BITS)) - 1;
+	
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	// line data by index
+	private float[] startX = new float[INITIAL_CAPACITY], startY = new float[INITIAL_CAPACITY];
+	private float[] endX = new float[INITIAL_CAPACITY], endY = new float[INITIAL_CAPACITY];
+	private int[] directions = new int[INITIAL_CAPACITY];
+	private int[] owners = new int[INITIAL_CAPACITY];
+	private int[] handles = new int[INITIAL_CAPACITY];
+
+	// indexes [0, liveCount) are live and [liveCount, count) are pending
+	private int liveCount = 0;
+	private int count = 0;
+
+	// data by handle slot
+	private int[] indexes = new int[INITIAL_CAPACITY];
+	private int[] proxies = new int[INITIAL_CAPACITY];
+	private int[] generations = new int[INITIAL_CAPACITY];
+	private int slotCount = 0;
+
+	// freed slots are reused most recently freed first
+	private int[] freeSlots = new int[INITIAL_CAPACITY];
+	private int freeCount = 0;
+
+	/**
+	 * Gets the number of live lines.
+	 * @return Number of lines.
+	 */
+	public int size() {
+		return liveCount;
+	}
+
+	/**
+	 * Gets the handle of the line at an index.
+	 * @param index Index of a live or pending line.
+	 * @return Line handle.
+	 */
+	public int getHandle(int index) {
+		return handles[index];
+	}
+
+	/**
+	 * Gets the current index of a line.
+	 * Indexes of live lines are less than {@link #size()}; pending lines have higher indexes.
+	 * @param handle Line handle.
+	 * @return Index or {@link #NONE} if there is no line with this handle, including if the line has been removed.
+	 */
+	public int getIndex(int handle) {
+		if(handle < 0) return NONE;
+		
+		int slot = handle & SLOT_MASK;
+		if(slot >= slotCount || generations[slot] != handle >>> SLOT_BITS) return NONE;
+		return indexes[slot];
+	}
+
+	/**
+	 * Determines if a handle refers to a live line.
+	 * @param handle Line handle.
+	 * @return True if the line exists and is not pending.
+	 */
+	public boolean isLive(int handle) {
+		int index = getIndex(handle);
+		return index != NONE && index < liveCount;
+	}
+
+	public float getStartX(int index) {
+		return startX[index];
+	}
+
+	public float getStartY(int index) {
+		return startY[index];
+	}
+
+	public float getEndX(int index) {
+		return endX[index];
+	}
+
+	public float getEndY(int index) {
+		return endY[index];
+	}
+
+	public Direction getDirection(int index) {
+		return DIRECTIONS[directions[index]];
+	}
+
+	/**
+	 * Gets the handle of the creature laying the line at an index.
+	 * @param index Line index.
+	 * @return Creature handle or {@link #NONE} if the line is not being laid.
+	 * @see Creature#getHandle()
+	 */
+	public int getOwner(int index) {
+		return owners[index];
+	}
+
+	/**
+	 * Gets the length of the line at an index.
+	 * This is negative if the line has been trimmed back past its start.
+	 * @param index Line index.
+	 * @return Length.
+	 */
+	public float getLength(int index) {
+		int d = directions[index];
+		return (endX[index] - startX[index]) * Direction.DX[d] + (endY[index] - startY[index]) * Direction.DY[d];
+	}
+
+	/**
+	 * Calculates the bounding box of the line at an index.
+	 * @param index Line index.
+	 * @param box Box to set to the bounds of the line.
+	 * @return The box passed in.
+	 */
+	public Box getBoundingBox(int index, Box box) {
+		int d = directions[index];
+		float x1 = startX[index], y1 = startY[index], x2 = endX[index], y2 = endY[index];
+
+		// the end is on the left for lines going left and so on
+		box.setLeft(Box.select(x1, x2, Direction.FACES_LEFT[d]));
+		box.setRight(Box.select(x1, x2, Direction.FACES_RIGHT[d]));
+		box.setBottom(Box.select(y1, y2, Direction.FACES_DOWN[d]));
+		box.setTop(Box.select(y1, y2, Direction.FACES_UP[d]));
+		return box;
+	}
+
+	/**
+	 * Creates a new pending line.
+	 * @param x1 Start x.
+	 * @param y1 Start y.
+	 * @param x2 End x.
+	 * @param y2 End y.
+	 * @param direction Direction from start to end.
+	 * @param owner Handle of the creature laying the line or {@link #NONE}.
+	 * @return Handle of the new line.
+	 */
+	int add(float x1, float y1, float x2, float y2, Direction direction, int owner) {
+		if(count == handles.length) growLines();
+
+		int slot;
+		if(freeCount > 0) slot = freeSlots[--freeCount];
+		else {
+			if(slotCount > SLOT_MASK) throw new IllegalStateException("too many lines");
+			if(slotCount == indexes.length) growSlots();
+			slot = slotCount++;
+		}
+		
+		int handle = (generations[slot] << SLOT_BITS) | slot;
+
+		int index = count++;
+		startX[index] = x1;
+		startY[index] = y1;
+		endX[index] = x2;
+		endY[index] = y2;
+		directions[index] = direction.ordinal();
+		owners[index] = owner;
+		handles[index] = handle;
+		indexes[slot] = index;
+		proxies[slot] = NONE;
+
+		return handle;
+	}
+
+	/**
+	 * Makes all pending lines live, in the order they were added.
+	 */
+	void flush() {
+		liveCount = count;
+	}
+
+	/**
+	 * Removes a live line and frees its handle.
+	 * The last live line takes the index of the removed line.
+	 * @param handle Line to remove.
+	 */
+	void remove(int handle) {
+		int index = getIndex(handle);
+		if(index == NONE || index >= liveCount) throw new IllegalArgumentException("line is not live");
+
+		int lastLive = liveCount - 1;
+		if(index != lastLive) copy(lastLive, index);
+
+		// keep pending lines contiguous and in order
+		for(int i = liveCount; i < count; i++) {
+			copy(i, i - 1);
+		}
+
+		liveCount--;
+		count--;
+		free(handle);
+	}
+
+	/**
+	 * Removes all lines. Slots are freed pending lines first and then live lines, in index order.
+	 */
+	void clear() {
+		for(int i = liveCount; i < count; i++) free(handles[i]);
+		for(int i = 0; i < liveCount; i++) free(handles[i]);
+
+		liveCount = 0;
+		count = 0;
+	}
+
+	/**
+	 * Sets the creature laying a line.
+	 * @param handle Handle of a line in this store.
+	 * @param owner Creature handle or {@link #NONE}.
+	 */
+	void setOwner(int handle, int owner) {
+		owners[indexes[handle & SLOT_MASK]] = owner;
+	}
+
+	/**
+	 * Gets the broadphase proxy for a line.
+	 * @param handle Handle of a line in this store.
+	 * @return Proxy id or {@link #NONE}.
+	 */
+	int getProxy(int handle) {
+		return proxies[handle & SLOT_MASK];
+	}
+
+	/**
+	 * Sets the broadphase proxy for a line.
+	 * @param handle Handle of a line in this store.
+	 * @param proxy Proxy id or {@link #NONE}.
+	 */
+	void setProxy(int handle, int proxy) {
+		proxies[handle & SLOT_MASK] = proxy;
+	}
+
+	/**
+	 * Extends the length of a line by the specified amount.
+	 * @param handle Handle of a line in this store.
+	 * @param amount Amount to extend by.
+	 */
+	void extend(int handle, float amount) {
+		int index = indexes[handle & SLOT_MASK];
+
+		int d = directions[index];
+		endX[index] += amount * Direction.DX[d];
+		endY[index] += amount * Direction.DY[d];
+	}
+
+	/**
+	 * Updates a line to remove intersection with the specified box. This could create a second
+	 * line if the box intersects the middle of the line only and not with the start or end.
+	 * When the line is split, the line is updated to start at the edge of the box - it's end point is not changed.
+	 * A new pending line is added from the old start point to the edge of the box.
+	 * This method assumes the line is not entirely within the box (which would remove the entire line).
+	 * @param handle Handle of a line in this store.
+	 * @param b Box to intersect with.
+	 * @return Handle of the new line that was created (if any) by the removal of part of the line.
+	 * {@link #END_REMOVED} if the end of the line was removed, otherwise {@link #NONE}.
+	 */
+	int removeIntersection(int handle, Box b) {
+		int index = indexes[handle & SLOT_MASK];
+		Direction direction = DIRECTIONS[directions[index]];
+		int d = directions[index];
+		float alongX = Direction.ALONG_X[d], alongY = Direction.ALONG_Y[d];
+		float x1 = startX[index], y1 = startY[index];
+
+		if(b.contains(x1, y1)) {
+			// move start to box edge
+			// shorten length so end does not move
+			float front = b.getFront(direction);
+			startX[index] = Box.select(x1, front, alongX);
+			startY[index] = Box.select(y1, front, alongY);
+		}
+		else if(b.contains(endX[index], endY[index])) {
+			// move end to box edge
+			float back = b.getBack(direction);
+			endX[index] = Box.select(endX[index], back, alongX);
+			endY[index] = Box.select(endY[index], back, alongY);
+
+			return END_REMOVED;
+		}
+		else {
+			// Box bisects line - create new line from current start to box edge
+			// Update this line to start at box edge and go to to current end
+			float back = b.getBack(direction), front = b.getFront(direction);
+			int newLine = add(x1, y1, Box.select(x1, back, alongX), Box.select(y1, back, alongY), direction, NONE);
+			startX[index] = Box.select(x1, front, alongX);
+			startY[index] = Box.select(y1, front, alongY);
+
+			return newLine;
+		}
+
+		return NONE;
+	}
+
+	/**
+	 * Copies all the data for the line at one index to another index.
+	 */
+	private void copy(int from, int to) {
+		startX[to] = startX[from];
+		startY[to] = startY[from];
+		endX[to] = endX[from];
+		endY[to] = endY[from];
+		directions[to] = directions[from];
+		owners[to] = owners[from];
+		handles[to] = handles[from];
+		indexes[handles[to] & SLOT_MASK] = to;
+	}
+
+	private void free(int handle) {
+		int slot = handle & SLOT_MASK;
+		indexes[slot] = NONE;
+		proxies[slot] = NONE;
+		generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+
+		if(freeCount == freeSlots.length) freeSlots = copyOf(freeSlots, freeCount * 2);
+		freeSlots[freeCount++] = slot;
+	}
+
+	private void growLines() {
+		int capacity = handles.length * 2;
+		startX = copyOf(startX, capacity);
+		startY = copyOf(startY, capacity);
+		endX = copyOf(endX, capacity);
+		endY = copyOf(endY, capacity);
+		directions = copyOf(directions, capacity);
+		owners = copyOf(owners, capacity);
+		handles = copyOf(handles, capacity);
+	}
+
+	private void growSlots() {
+		int capacity = indexes.length * 2;
+		indexes = copyOf(indexes, capacity);
+		proxies = copyOf(proxies, capacity);
+		generations = copyOf(generations, capacity);
+	}
+
+	private static int[] copyOf(int[] array, int capacity) {
+		int[] copy = new int[capacity];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, capacity));
+		return copy;
+	}
+
+	private static float[] copyOf(float[] array, int capacity) {
+		float[] copy = new float[capacity];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, capacity));
+		return copy;
+	}
+}
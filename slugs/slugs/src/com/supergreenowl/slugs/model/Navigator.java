@@ -1,9 +1,9 @@
 package com.supergreenowl.slugs.model;
 
+import com.supergreenowl.sgdx.RandomSource;
+
 public class Navigator {
 	
-	private static final DirectionPair directionPair = new DirectionPair();
-	
 	private World world;
 	
 	private Direction edgeDirection;
@@ -63,10 +63,11 @@ public class Navigator {
 	 * Selects the directions to move away from the end point.
 	 * @param start Origin point to move from.
 	 * @param end Point to navigate away from.
-	 * @return Pair of directions to move away from the end point; one horizontal and one vertical.
-	 * The primary direction is the direction that leads away quickest. The same instance is returned each time. 
+	 * @param directionPair Pair to set to the directions to move away from the end point; one horizontal and one vertical.
+	 * The primary direction is the direction that leads away quickest.
+	 * @return The pair passed in.
 	 */
-	public static DirectionPair navigateAwayFrom(Point start, Point end) {
+	public static DirectionPair navigateAwayFrom(Point start, Point end, DirectionPair directionPair) {
 		float xMagnitude = Math.abs(end.getX() - start.getX());
 		float yMagnitude = Math.abs(end.getY() - start.getY());
 		
@@ -84,7 +85,7 @@ public class Navigator {
 	 * @return Edge point.
 	 */
 	public Point getRandomEdgePoint() {
-		int selectedEdge = World.generator.nextInt(4);
+		int selectedEdge = world.getRandom().nextInt(4);
 		
 		float x = 0, y = 0;
 		
@@ -136,8 +137,17 @@ public class Navigator {
 	 * @param p
 	 */
 	public void setToRandomPoint(Point p) {
+		setToRandomPoint(p, world.getRandom());
+	}
+	
+	/**
+	 * Sets the specified point to a random point within this world, chosen by a specific generator.
+	 * @param p
+	 * @param random Random number generator to choose the point with.
+	 */
+	public void setToRandomPoint(Point p, RandomSource random) {
 		if(p == null) throw new IllegalArgumentException("cannot set null point");
-		p.set(getRandomX(), getRandomY());
+		p.set(getRandomX(random), getRandomY(random));
 	}
 	
 	/**
@@ -145,7 +155,11 @@ public class Navigator {
 	 * @return
 	 */
 	private float getRandomX() {
-		return World.generator.nextFloat() * world.getWidth();
+		return getRandomX(world.getRandom());
+	}
+	
+	private float getRandomX(RandomSource random) {
+		return random.nextFloat() * world.getWidth();
 	}
 	
 	/**
@@ -153,7 +167,11 @@ public class Navigator {
 	 * @return
 	 */
 	private float getRandomY() {
-		return World.generator.nextFloat() * world.getHeight();
+		return getRandomY(world.getRandom());
+	}
+	
+	private float getRandomY(RandomSource random) {
+		return random.nextFloat() * world.getHeight();
 	}
 	
 }
@@ -2,9 +2,11 @@ package com.supergreenowl.slugs.model;
 
 import com.badlogic.gdx.utils.Pool;
 import com.supergreenowl.sgdx.Resettable;
+import com.supergreenowl.sgdx.TimerWheel;
 
 /**
  * Spawns creatures in the world at random intervals.
+ * <p>Each spawn is a timer on the world's clock, which schedules the next spawn when it fires.
  * @author Luke
  * 
  * @param <C> Type of creatures to spawn.
@@ -24,9 +26,18 @@ public abstract class Nest<C extends Creature> extends Pool<C> implements Resett
 	private final World world;
 	
 	private float speedMultiplier = 1f;
+	private float spawnIntervalScale = 1f;
 	private float lastSpawn = 0f;
 	private float nextSpawn;
 	
+	private int spawnTimer = TimerWheel.NONE;
+	private final TimerWheel.Callback spawn = new TimerWheel.Callback() {
+		@Override
+		public void onTimer(float time) {
+			spawnCreature(time);
+		}
+	};
+	
 	/**
 	 * Creates a new nest.
 	 * @param world World to spawn creatures in.
@@ -51,29 +62,55 @@ public abstract class Nest<C extends Creature> extends Pool<C> implements Resett
 	}
 	
 	/**
-	 * Spawns creatures as per the distribution of this nest.
-	 * @param time Elapsed time in seconds since last spawn call.
+	 * Sets a multiplier for the time between spawns, so that creatures can be made to spawn less often.
+	 * Takes effect from the spawn after the next one.
+	 * @param spawnIntervalScale Multiplier, where 1 spawns at the normal rate.
 	 */
-	public void spawnCreatures(float time) {
-		while(nextSpawn <= world.getClock().getTime()) {
-			C creature = obtain();
-			
-			// Set start direction to a random point on the edge of the world
-			Point startPoint = world.getNavigator().getRandomEdgePoint();
-			Direction startDirection = world.getNavigator().getLastEdgeDirection();
-			
-			creature.place(startPoint.getX(), startPoint.getY(), startDirection);
-			creature.setSpeedMultiplier(speedMultiplier);
-			
-			world.add(creature);
-			lastSpawn = world.getClock().getTime();
-			
-			calculateNextSpawn();
-		}
+	public void setSpawnIntervalScale(float spawnIntervalScale) {
+		if(spawnIntervalScale <= 0f) throw new IllegalArgumentException("spawn interval scale must be positive");
+		this.spawnIntervalScale = spawnIntervalScale;
 	}
 	
 	/**
-	 * Resets this nest. Note that the speed multiplier is not reset.
+	 * Gets the world time at which the next creature will spawn.
+	 * @return Time in seconds.
+	 */
+	public float getNextSpawnTime() {
+		return nextSpawn;
+	}
+	
+	/**
+	 * Spawns a creature and schedules the next spawn.
+	 * @param time Time the spawn was due. The next spawn follows on from this rather than from the current time,
+	 * so the rate of spawns is the same however long each tick is.
+	 */
+	private void spawnCreature(float time) {
+		C creature = obtain();
+		
+		// Set start direction to a random point on the edge of the world
+		Point startPoint = world.getNavigator().getRandomEdgePoint();
+		Direction startDirection = world.getNavigator().getLastEdgeDirection();
+		
+		creature.place(startPoint.getX(), startPoint.getY(), startDirection);
+		creature.setSpeedMultiplier(speedMultiplier);
+		
+		world.add(creature);
+		lastSpawn = time;
+		
+		calculateNextSpawn();
+	}
+	
+	/**
+	 * Returns a creature spawned by this nest to its pool.
+	 * @param creature Creature, which must be of the type this nest spawns.
+	 */
+	@SuppressWarnings("unchecked")
+	void freeCreature(Creature creature) {
+		free((C)creature);
+	}
+	
+	/**
+	 * Resets this nest. Note that the speed multiplier and spawn interval scale are not reset.
 	 */
 	@Override
 	public void reset() {
@@ -82,15 +119,19 @@ public abstract class Nest<C extends Creature> extends Pool<C> implements Resett
 	}
 
 	/**
-	 * Calculates the time at which the next creature should spawn.
+	 * Calculates the time at which the next creature should spawn and schedules it.
 	 */
 	private void calculateNextSpawn() {
 		float nextSpawnDuration = -1f;
 		
 		while(nextSpawnDuration < 0f) {
-			nextSpawnDuration = (float) (World.generator.nextGaussian() * spawnVariance + spawnRate); 
+			nextSpawnDuration = (float) (world.getRandom().nextGaussian() * spawnVariance + spawnRate); 
 		}
 		
-		nextSpawn = lastSpawn + nextSpawnDuration;
+		nextSpawn = lastSpawn + nextSpawnDuration * spawnIntervalScale;
+		
+		TimerWheel timers = world.getTimers();
+		timers.cancel(spawnTimer);
+		spawnTimer = timers.schedule(nextSpawn, spawn);
 	}
 }
@@ -0,0 +1,88 @@
+package com.supergreenowl.slugs.model;
+
+/**
+ * Result of casting a ray through a world: the first thing the ray hit and how far away it is.
+ * Results are meant to be kept and reused for every cast.
+ * @author Luke
+ * @see World#raycast(Point, Direction, Creature, RaycastHit)
+ */
+public class RaycastHit {
+
+	/**
+	 * Kinds of things that a ray can hit.
+	 */
+	public enum Kind {
+		/** The edge of the world. */
+		EDGE,
+		/** A line. */
+		LINE,
+		/** A segment of a creature. */
+		SEGMENT
+	}
+
+	private Kind kind = Kind.EDGE;
+	private float distance = 0f;
+	private int line = LineStore.NONE;
+	private Segment segment = null;
+
+	/**
+	 * Gets what was hit.
+	 * @return Kind of thing hit.
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Gets the distance along the ray to the hit.
+	 * @return Distance; 0 if the ray starts on or inside the thing hit.
+	 */
+	public float getDistance() {
+		return distance;
+	}
+
+	/**
+	 * Gets the line that was hit.
+	 * @return Line handle or {@link LineStore#NONE} if the hit was not a line.
+	 */
+	public int getLine() {
+		return line;
+	}
+
+	/**
+	 * Gets the creature segment that was hit.
+	 * @return Segment or null if the hit was not a segment.
+	 */
+	public Segment getSegment() {
+		return segment;
+	}
+
+	/**
+	 * Gets the creature that was hit.
+	 * @return Creature or null if the hit was not a segment.
+	 */
+	public Creature getCreature() {
+		return segment == null ? null : segment.getCreature();
+	}
+
+	void setEdge(float distance) {
+		this.kind = Kind.EDGE;
+		this.distance = distance;
+		this.line = LineStore.NONE;
+		this.segment = null;
+	}
+
+	void setLine(int line, float distance) {
+		this.kind = Kind.LINE;
+		this.distance = distance;
+		this.line = line;
+		this.segment = null;
+	}
+
+	void setSegment(Segment segment, float distance) {
+		this.kind = Kind.SEGMENT;
+		this.distance = distance;
+		this.line = LineStore.NONE;
+		this.segment = segment;
+	}
+}
@@ -11,19 +11,20 @@ public class RunFromBehaviour implements CreatureBehaviour, Resettable {
 
 	private Creature creature;
 	private Direction direction;
+	private final DirectionPair directions = new DirectionPair();
 	
 	public RunFromBehaviour(Creature c) {
 		this.creature = c;
 	}
 	
 	/**
-	 * Sets the creature to run from.
-	 * @param c Creature to run from.
+	 * Sets the point to run from.
+	 * @param scarer Position of the creature to run from.
 	 */
-	public void setScarer(Creature c) {
-		DirectionPair dp = Navigator.navigateAwayFrom(creature.getHead().getPosition(), c.getHead().getPosition());
+	public void setScarer(Point scarer) {
+		DirectionPair dp = Navigator.navigateAwayFrom(creature.getHeadPosition(), scarer, directions);
 		
-		direction = dp.getPrimary().isOpposite(creature.getHead().getDirection())
+		direction = dp.getPrimary().isOpposite(creature.getDirection())
 				? dp.getSecondary() : dp.getPrimary();
 	}
 	
@@ -33,6 +34,12 @@ public class RunFromBehaviour implements CreatureBehaviour, Resettable {
 		creature.turn(direction);
 	}
 
+	@Override
+	public float getTimeToNextDecision() {
+		// direction is only chosen when the scarer is set
+		return NEVER;
+	}
+
 	@Override
 	public void reset() {
 		direction = null;
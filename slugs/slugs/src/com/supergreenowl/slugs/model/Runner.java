@@ -6,17 +6,50 @@ public class Runner extends LineCreature {
 	private static final float HEIGHT = WIDTH * 3f;
 	
 	private final Box collisionBox = new Box();
+	private final Box collisionStartBox = new Box();
+	private final Box sweptCollisionBox = new Box();
 	
 	public Runner() {
-		super(WIDTH, HEIGHT, true, true);
+		super(CreatureType.RUNNER, WIDTH, HEIGHT);
 	}
 	
 	public Box getCollisionBox() {
-		collisionBox.set(getHead().getBoundingBox());
-		
+		collisionBox.set(getHeadBox());
+		excludeLinePoint(collisionBox);
+		return collisionBox;
+	}
+	
+	/**
+	 * Gets the collision box of this runner at the start of its last move.
+	 * @return Box.
+	 */
+	public Box getCollisionStartBox() {
+		collisionStartBox.set(getMoveStart());
+		excludeLinePoint(collisionStartBox);
+		return collisionStartBox;
+	}
+	
+	/**
+	 * Gets the area covered by the collision box of this runner during its last move.
+	 * @return Box.
+	 */
+	public Box getSweptCollisionBox() {
+		sweptCollisionBox.set(getLastMove());
+		excludeLinePoint(sweptCollisionBox);
+		return sweptCollisionBox;
+	}
+	
+	@Override
+	float getTimeToNextEvent(float horizon) {
+		// hitting a line ends the game
+		float lineContact = getWorld().getTimeToLineContact(getCollisionBox(), getDirection(),
+				getSpeed(), getHandle(), horizon);
+		return Math.min(super.getTimeToNextEvent(horizon), lineContact);
+	}
+	
+	private void excludeLinePoint(Box b) {
 		// collision box excludes line point to avoid collision with own line
 		// can't just check line.owner == this as on turn, old line is at line point and no longer owned
-		collisionBox.shrink(getWidth() / 2f + 0.01f, getHead().getDirection());
-		return collisionBox;
+		b.shrink(getWidth() / 2f + 0.01f, getDirection());
 	}
 }
\ No newline at end of file
@@ -1,226 +1,105 @@
 package com.supergreenowl.slugs.model;
 
-import com.supergreenowl.sgdx.Resettable;
-
 /**
  * Part of a creature.
- * A creature is represented by a doubly-linked list of segments.
- * The structure necessary to maintain this list is internal to the segment class itself.
- * This is done to avoid allocation of new list node wrapper objects on list insert operations
- * (e.g. if {@code java.util.List<E>} was used).
+ * <p>A segment is a view of one slot in its creature's body, which is stored as a ring buffer of bounds and
+ * directions. Each creature has a segment for every slot it can ever use and never makes any more,
+ * so the segment in a slot is the same object for as long as the slot is in use and can be used to
+ * identify that part of the creature, such as in the segment tree. Reading a segment whose slot
+ * is no longer part of the creature gives whatever is left in the slot.
  * @author Luke
- *
+ * @see Creature
  */
-public class Segment implements Resettable {
+public class Segment {
 
-	private final Box box = new Box();
-	private Direction direction;
-	
-	private Segment next = null, previous = null;
-	
-	/**
-	 * Positions a segment in the world and sets its size. The segment is centered on the point specified.
-	 * @param x x coordinate of point to place segment at.
-	 * @param y y coordinate of point to place segment at.
-	 * @param width Width of the segment.
-	 * @param height Height of the segment.
-	 * @param direction Direction for the segment to face.
-	 */
-	void place(float x, float y, float width, float height, Direction direction) {
-		if(direction.isHorizontal()) box.setSize(height, width);
-		else box.setSize(width, height);
-		
-		box.moveTo(x, y);
-		this.direction = direction;
-	}
-	
 	/**
-	 * Gets the next segment in this creature.
-	 * @return
+	 * Creature that this segment belongs to.
 	 */
-	public Segment getNext() {
-		return next;
-	}
-	
-	/**
-	 * Gets the previous segment in this creature.
-	 * @return
-	 */
-	public Segment getPrevious() {
-		return previous;
-	}
-	
+	final Creature creature;
+
 	/**
-	 * Inserts a segment in the list after this segment.
-	 * @param segment Segment to insert; {@code null} to truncate the list at this segment.
+	 * Slot of this segment in its creature's body.
 	 */
-	void insert(Segment segment) {
-		if(this.next != null && this.next == segment) {
-			throw new IllegalStateException("cannot set next to current next");
-		}
-		
-		if(segment != null) {
-			segment.previous = this;
-			segment.next = this.next;
-			if(this.next != null) this.next.previous = segment;
-		}
-		
-		this.next = segment;
-	}
-	
+	final int slot;
+
 	/**
-	 * Gets the position of the centre of this segment.
-	 * @return Centre point.
+	 * Proxy for this segment in its world's segment tree; {@link SegmentTree#NONE} when not in a tree.
 	 */
-	public Point getPosition() {
-		return box.getCentre();
+	int treeProxy = SegmentTree.NONE;
+
+	Segment(Creature creature, int slot) {
+		this.creature = creature;
+		this.slot = slot;
 	}
-	
+
 	/**
-	 * Gets the length of this segment.
-	 * The size is the width if it is facing horizontally and the height otherwise.
-	 * @return Size of the segment.
+	 * Gets the creature that this segment belongs to.
+	 * @return Creature.
 	 */
-	public float getSize() {		
-		return direction.isHorizontal() ? box.getWidth() : box.getHeight();
+	public Creature getCreature() {
+		return creature;
 	}
-	
+
 	/**
-	 * Determines if this segment is currently active.
-	 * A segment becomes inactive when its size has decreased to zero.
-	 * @return Flag indicating if this segment is active.
+	 * Determines if this segment is the head of its creature.
+	 * @return True if this is the head.
 	 */
-	public boolean isActive() {
-		
-		// if direction has not been set yet, creature is not active
-		if(direction == null) return false;
-		
-		return getSize() >= 0f;
+	public boolean isHead() {
+		return creature.getSegment(0) == this;
 	}
-	
+
 	/**
-	 * Gets the direction that this segment is facing.
-	 * @return Direction.
+	 * Determines if this segment is the tail of its creature. The head of a creature
+	 * with a single segment is also its tail.
+	 * @return True if this is the tail.
 	 */
-	public Direction getDirection() {
-		return direction;
+	public boolean isTail() {
+		return creature.getSegment(creature.getSegmentCount() - 1) == this;
 	}
-	
-	/**
-	 * Sets the direction that this segment is facing.
-	 * @param direction New direction to face.
-	 */
-	public void setDirection(Direction direction) {
-		this.direction = direction;
+
+	public float getLeft() {
+		return creature.lefts[slot];
 	}
-	
-	/**
-	 * Determines if this segment contains the specified point.
-	 * @param point Location to test.
-	 * @return True if and only if the location falls within the bounds of this segment.
-	 */
-	public boolean contains(Point point) {
-		return box.contains(point);
+
+	public float getRight() {
+		return creature.rights[slot];
 	}
-	
-	/**
-	 * Gets a box that defines the area of this segment.
-	 * @return Box.
-	 */
-	public Box getBoundingBox() {
-		return box;
+
+	public float getBottom() {
+		return creature.bottoms[slot];
 	}
-	
-	/**
-	 * Moves this segment by the specified amount.
-	 * The head of a multi-segment creature grows and the tail shrinks.
-	 * @param distance Distance to move.
-	 */
-	void move(float distance) {
-		
-		boolean isHead = previous == null;
-		boolean isTail = next == null;
-		
-		// sole segment moves
-		if(isHead && isTail) box.move(distance, direction);
-		
-		// head of multi-segment creature grows
-		else if(isHead) box.grow(distance, direction);
-		
-		// tail of multi-segment creature shrinks
-		else if(isTail) box.shrink(distance, direction); 
 
-		// middle section of multi-segment creature stays still
+	public float getTop() {
+		return creature.tops[slot];
 	}
-	
+
 	/**
-	 * Splits this segment in two. This segment remains as head and target
-	 * segment is set to the tail.
-	 * @param target Segment to set as the tail of this segment.
-	 * @param creatureWidth Width of the creature that this segment belongs to.
+	 * Gets the area of this segment.
+	 * @param result Box to set to the area.
+	 * @return The box passed in.
 	 */
-	void split(Segment target, float creatureWidth) {
-		// make target a copy of this segment
-		target.box.set(box);
-		target.direction = direction;
-		
-		// calculate point to split this segment and target
-		float splitPoint;
-		
-		switch (direction) {
-		case LEFT:
-			splitPoint = box.getLeft() + creatureWidth;
-			target.box.setLeft(splitPoint);
-			box.setRight(splitPoint);
-			break;
-			
-		case RIGHT:
-			splitPoint = box.getRight() - creatureWidth;
-			target.box.setRight(splitPoint);
-			box.setLeft(splitPoint);
-			break;
-			
-		case UP:
-			splitPoint = box.getTop() - creatureWidth;
-			target.box.setTop(splitPoint);
-			box.setBottom(splitPoint);
-			break;
-			
-		case DOWN:
-			splitPoint = box.getBottom() + creatureWidth;
-			target.box.setBottom(splitPoint);
-			box.setTop(splitPoint);
-			break;
-		}
-		
-		// insert target into list
-		insert(target);
+	public Box getBoundingBox(Box result) {
+		result.setLeft(creature.lefts[slot]);
+		result.setRight(creature.rights[slot]);
+		result.setBottom(creature.bottoms[slot]);
+		result.setTop(creature.tops[slot]);
+		return result;
 	}
-	
+
 	/**
-	 * Clears the next and previous pointers for this segment.
+	 * Gets the length of this segment.
+	 * The size is the width if it is facing horizontally and the height otherwise.
+	 * @return Size of the segment.
 	 */
-	void clear() {
-		next = null;
-		previous = null;
+	public float getSize() {
+		return creature.getSize(slot);
 	}
-	
+
 	/**
-	 * Shrinks this segment by the specified amount in its current direction.
-	 * @param amount Amount to shrink by.
+	 * Gets the direction that this segment is facing.
+	 * @return Direction.
 	 */
-	void shrink(float amount) {
-		box.shrink(amount, direction);
-	}
-
-	@Override
-	public void reset() {
-		next = null;
-		previous = null;
-		direction = null;
-		box.setBottom(0f);
-		box.setLeft(0f);
-		box.setRight(0f);
-		box.setTop(0f);
+	public Direction getDirection() {
+		return Creature.DIRECTIONS[creature.directions[slot]];
 	}
 }
@@ -0,0 +1,473 @@
+package com.supergreenowl.slugs.model;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Dynamic bounding volume tree of creature segments.
+ * <p>Each segment is a leaf with a fat box - its bounds expanded by a margin and stretched further
+ * in the direction it is facing - so a segment only has to be re-inserted once it moves outside its fat box.
+ * Branches are kept balanced with tree rotations as leaves are inserted and removed,
+ * so queries visit a number of nodes that grows with the log of the number of segments.
+ * <p>Nodes are stored in flat arrays that only grow, so the tree does not allocate once warmed up.
+ * @author Luke
+ *
+ */
+class SegmentTree {
+
+	/** Proxy id for a segment that is not in a tree; also used for null node links. */
+	static final int NONE = -1;
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	// fat boxes are expanded by this margin on all sides and by the look ahead in the segment's direction
+	private static final float MARGIN = 2f;
+	private static final float LOOK_AHEAD = 6f;
+
+	// fat boxes by node
+	private float[] lefts = new float[INITIAL_CAPACITY], rights = new float[INITIAL_CAPACITY];
+	private float[] bottoms = new float[INITIAL_CAPACITY], tops = new float[INITIAL_CAPACITY];
+
+	// tree structure by node - free nodes are chained through parents
+	private int[] parents = new int[INITIAL_CAPACITY];
+	private int[] children1 = new int[INITIAL_CAPACITY], children2 = new int[INITIAL_CAPACITY];
+	private int[] heights = new int[INITIAL_CAPACITY];
+	private Segment[] segments = new Segment[INITIAL_CAPACITY];
+
+	private int root = NONE;
+	private int nodesUsed = 0;
+	private int freeNode = NONE;
+	private int leafCount = 0;
+
+	private int[] stack = new int[INITIAL_CAPACITY];
+
+	private float hitDistance;
+
+	/**
+	 * Gets the number of segments in this tree.
+	 * @return Number of segments.
+	 */
+	int size() {
+		return leafCount;
+	}
+
+	/**
+	 * Adds a segment to this tree.
+	 * @param segment Segment to add. Must not already be in a tree.
+	 */
+	void add(Segment segment) {
+		if(segment.treeProxy != NONE) throw new IllegalStateException("segment is already in tree");
+
+		int leaf = allocateNode();
+		segments[leaf] = segment;
+		heights[leaf] = 0;
+		setFatBox(leaf, segment);
+
+		insertLeaf(leaf);
+		segment.treeProxy = leaf;
+		leafCount++;
+	}
+
+	/**
+	 * Removes a segment from this tree. Does nothing if the segment is not in the tree.
+	 * @param segment Segment to remove.
+	 */
+	void remove(Segment segment) {
+		int leaf = segment.treeProxy;
+		if(leaf == NONE) return;
+
+		removeLeaf(leaf);
+		freeNode(leaf);
+		segment.treeProxy = NONE;
+		leafCount--;
+	}
+
+	/**
+	 * Refits a segment after it has moved or changed size.
+	 * The segment is only re-inserted if it is no longer within its fat box.
+	 * @param segment Segment that has changed. Must be in this tree.
+	 * @return True if the segment was re-inserted.
+	 */
+	boolean update(Segment segment) {
+		int leaf = segment.treeProxy;
+		if(leaf == NONE) throw new IllegalStateException("segment is not in tree");
+
+		if(segment.getLeft() >= lefts[leaf] && segment.getRight() <= rights[leaf]
+				&& segment.getBottom() >= bottoms[leaf] && segment.getTop() <= tops[leaf]) return false;
+
+		removeLeaf(leaf);
+		setFatBox(leaf, segment);
+		insertLeaf(leaf);
+		return true;
+	}
+
+	/**
+	 * Finds all segments that intersect an area.
+	 * @param area Area to search.
+	 * @param result Array to add matching segments to. Existing contents are not cleared.
+	 */
+	void query(Box area, Array<Segment> result) {
+		query(area.getLeft(), area.getRight(), area.getBottom(), area.getTop(), result);
+	}
+
+	/**
+	 * Finds all segments that contain a point.
+	 * @param x x coordinate of the point.
+	 * @param y y coordinate of the point.
+	 * @param result Array to add matching segments to. Existing contents are not cleared.
+	 */
+	void query(float x, float y, Array<Segment> result) {
+		query(x, y, y, y, result);
+	}
+
+	/**
+	 * Finds the first segment hit by a ray travelling in an axis-aligned direction.
+	 * A segment that contains the start of the ray is hit at distance 0.
+	 * @param x x coordinate of the start of the ray.
+	 * @param y y coordinate of the start of the ray.
+	 * @param direction Direction the ray travels in.
+	 * @param maxDistance Length of the ray.
+	 * @param ignored Creature whose segments are ignored or null to consider every segment.
+	 * @return Nearest segment hit or null if no segment is within the length of the ray.
+	 * The distance to the segment is available from {@link #getHitDistance()}.
+	 */
+	Segment raycast(float x, float y, Direction direction, float maxDistance, Creature ignored) {
+		Segment nearest = null;
+		float best = maxDistance;
+		if(root == NONE) return null;
+
+		int top = 0;
+		stack[top++] = root;
+
+		while(top > 0) {
+			int node = stack[--top];
+
+			// skip nodes that cannot contain a hit nearer than the best so far
+			float distance = getRayDistance(x, y, direction, lefts[node], rights[node], bottoms[node], tops[node]);
+			if(distance < 0f || distance > best) continue;
+
+			if(children1[node] == NONE) {
+				Segment s = segments[node];
+				if(s.creature == ignored) continue;
+
+				distance = getRayDistance(x, y, direction, s.getLeft(), s.getRight(), s.getBottom(), s.getTop());
+				if(distance < 0f || distance > best || (distance == best && nearest != null)) continue;
+
+				nearest = s;
+				best = distance;
+			}
+			else {
+				top = push(top, children1[node]);
+				top = push(top, children2[node]);
+			}
+		}
+
+		hitDistance = best;
+		return nearest;
+	}
+
+	/**
+	 * Gets the distance to the segment found by the last call to
+	 * {@link #raycast(float, float, Direction, float, Creature)}.
+	 * @return Distance along the ray.
+	 */
+	float getHitDistance() {
+		return hitDistance;
+	}
+
+	/**
+	 * Removes all segments from this tree.
+	 * Segments are not updated so they should be reset separately.
+	 */
+	void clear() {
+		for(int i = 0; i < nodesUsed; i++) segments[i] = null;
+		root = NONE;
+		nodesUsed = 0;
+		freeNode = NONE;
+		leafCount = 0;
+	}
+
+	private void query(float left, float right, float bottom, float top, Array<Segment> result) {
+		if(root == NONE) return;
+
+		int count = 0;
+		stack[count++] = root;
+
+		while(count > 0) {
+			int node = stack[--count];
+			if(right < lefts[node] || left > rights[node] || top < bottoms[node] || bottom > tops[node]) continue;
+
+			if(children1[node] == NONE) {
+				Segment s = segments[node];
+				if(right < s.getLeft() || left > s.getRight() || top < s.getBottom() || bottom > s.getTop()) continue;
+				result.add(segments[node]);
+			}
+			else {
+				count = push(count, children1[node]);
+				count = push(count, children2[node]);
+			}
+		}
+	}
+
+	/**
+	 * Gets the distance along an axis-aligned ray to a box.
+	 * @return Distance or -1 if the ray misses the box. 0 if the ray starts within the box.
+	 */
+	private static float getRayDistance(float x, float y, Direction direction,
+			float left, float right, float bottom, float top) {
+		switch(direction) {
+		case RIGHT:
+			if(y < bottom || y > top || right < x) return -1f;
+			return Math.max(0f, left - x);
+		case LEFT:
+			if(y < bottom || y > top || left > x) return -1f;
+			return Math.max(0f, x - right);
+		case UP:
+			if(x < left || x > right || top < y) return -1f;
+			return Math.max(0f, bottom - y);
+		case DOWN:
+			if(x < left || x > right || bottom > y) return -1f;
+			return Math.max(0f, y - top);
+		default:
+			throw new IllegalStateException("What direction is that?");
+		}
+	}
+
+	private int push(int count, int node) {
+		if(count == stack.length) {
+			int[] newStack = new int[count * 2];
+			System.arraycopy(stack, 0, newStack, 0, count);
+			stack = newStack;
+		}
+		stack[count] = node;
+		return count + 1;
+	}
+
+	private void setFatBox(int leaf, Segment segment) {
+		lefts[leaf] = segment.getLeft() - MARGIN;
+		rights[leaf] = segment.getRight() + MARGIN;
+		bottoms[leaf] = segment.getBottom() - MARGIN;
+		tops[leaf] = segment.getTop() + MARGIN;
+
+		// segments only grow or move in the direction they face
+		switch(segment.getDirection()) {
+		case LEFT: lefts[leaf] -= LOOK_AHEAD; break;
+		case RIGHT: rights[leaf] += LOOK_AHEAD; break;
+		case UP: tops[leaf] += LOOK_AHEAD; break;
+		case DOWN: bottoms[leaf] -= LOOK_AHEAD; break;
+		}
+	}
+
+	private void insertLeaf(int leaf) {
+		if(root == NONE) {
+			root = leaf;
+			parents[leaf] = NONE;
+			return;
+		}
+
+		float leafLeft = lefts[leaf], leafRight = rights[leaf], leafBottom = bottoms[leaf], leafTop = tops[leaf];
+
+		// descend to the sibling that increases the total perimeter of the tree the least
+		int sibling = root;
+		while(children1[sibling] != NONE) {
+			int child1 = children1[sibling];
+			int child2 = children2[sibling];
+
+			float perimeter = getPerimeter(sibling);
+			float combinedPerimeter = 2f * (Math.max(rights[sibling], leafRight) - Math.min(lefts[sibling], leafLeft)
+					+ Math.max(tops[sibling], leafTop) - Math.min(bottoms[sibling], leafBottom));
+
+			// cost of pairing the leaf with this node and the minimum cost of pushing it further down
+			float cost = 2f * combinedPerimeter;
+			float inheritanceCost = 2f * (combinedPerimeter - perimeter);
+
+			float cost1 = getDescentCost(child1, leafLeft, leafRight, leafBottom, leafTop) + inheritanceCost;
+			float cost2 = getDescentCost(child2, leafLeft, leafRight, leafBottom, leafTop) + inheritanceCost;
+
+			if(cost < cost1 && cost < cost2) break;
+			sibling = cost1 < cost2 ? child1 : child2;
+		}
+
+		int oldParent = parents[sibling];
+		int newParent = allocateNode();
+		parents[newParent] = oldParent;
+		segments[newParent] = null;
+		heights[newParent] = heights[sibling] + 1;
+		children1[newParent] = sibling;
+		children2[newParent] = leaf;
+		parents[sibling] = newParent;
+		parents[leaf] = newParent;
+
+		if(oldParent == NONE) root = newParent;
+		else if(children1[oldParent] == sibling) children1[oldParent] = newParent;
+		else children2[oldParent] = newParent;
+
+		refitAncestors(newParent);
+	}
+
+	private void removeLeaf(int leaf) {
+		if(leaf == root) {
+			root = NONE;
+			return;
+		}
+
+		int parent = parents[leaf];
+		int grandParent = parents[parent];
+		int sibling = children1[parent] == leaf ? children2[parent] : children1[parent];
+
+		if(grandParent == NONE) {
+			root = sibling;
+			parents[sibling] = NONE;
+		}
+		else {
+			if(children1[grandParent] == parent) children1[grandParent] = sibling;
+			else children2[grandParent] = sibling;
+			parents[sibling] = grandParent;
+			refitAncestors(grandParent);
+		}
+
+		freeNode(parent);
+	}
+
+	/**
+	 * Rebalances and recalculates the bounds and height of a node and all of its ancestors.
+	 */
+	private void refitAncestors(int node) {
+		while(node != NONE) {
+			node = balance(node);
+
+			int child1 = children1[node];
+			int child2 = children2[node];
+			heights[node] = 1 + Math.max(heights[child1], heights[child2]);
+			setUnion(node, child1, child2);
+
+			node = parents[node];
+		}
+	}
+
+	/**
+	 * Performs a left or right rotation if a node's children differ in height by more than one.
+	 * @return Node now at the position of the specified node.
+	 */
+	private int balance(int a) {
+		if(children1[a] == NONE || heights[a] < 2) return a;
+
+		int b = children1[a];
+		int c = children2[a];
+		int difference = heights[c] - heights[b];
+
+		if(difference > 1) return rotate(a, c, b, false);
+		if(difference < -1) return rotate(a, b, c, true);
+		return a;
+	}
+
+	/**
+	 * Rotates the taller child of a node up to take the node's place.
+	 * @param a Node to rotate down.
+	 * @param up Taller child of a.
+	 * @param other Other child of a.
+	 * @param isUpFirst True if the taller child is the first child of a.
+	 * @return The taller child, which is now at the position of a.
+	 */
+	private int rotate(int a, int up, int other, boolean isUpFirst) {
+		int f = children1[up];
+		int g = children2[up];
+
+		// swap a and its taller child
+		children1[up] = a;
+		parents[up] = parents[a];
+		parents[a] = up;
+
+		if(parents[up] == NONE) root = up;
+		else if(children1[parents[up]] == a) children1[parents[up]] = up;
+		else children2[parents[up]] = up;
+
+		// keep the taller grandchild under the rotated node and give the shorter one to a
+		int keep = heights[f] > heights[g] ? f : g;
+		int give = keep == f ? g : f;
+
+		children2[up] = keep;
+		if(isUpFirst) children1[a] = give;
+		else children2[a] = give;
+		parents[give] = a;
+
+		setUnion(a, other, give);
+		setUnion(up, a, keep);
+		heights[a] = 1 + Math.max(heights[other], heights[give]);
+		heights[up] = 1 + Math.max(heights[a], heights[keep]);
+
+		return up;
+	}
+
+	/**
+	 * Gets the cost of inserting a leaf at or below a node, ignoring the cost of any further descent.
+	 */
+	private float getDescentCost(int node, float left, float right, float bottom, float top) {
+		float combined = 2f * (Math.max(rights[node], right) - Math.min(lefts[node], left)
+				+ Math.max(tops[node], top) - Math.min(bottoms[node], bottom));
+		if(children1[node] == NONE) return combined;
+		return combined - getPerimeter(node);
+	}
+
+	private float getPerimeter(int node) {
+		return 2f * (rights[node] - lefts[node] + tops[node] - bottoms[node]);
+	}
+
+	private void setUnion(int node, int child1, int child2) {
+		lefts[node] = Math.min(lefts[child1], lefts[child2]);
+		rights[node] = Math.max(rights[child1], rights[child2]);
+		bottoms[node] = Math.min(bottoms[child1], bottoms[child2]);
+		tops[node] = Math.max(tops[child1], tops[child2]);
+	}
+
+	private int allocateNode() {
+		int node;
+		if(freeNode != NONE) {
+			node = freeNode;
+			freeNode = parents[node];
+		}
+		else {
+			if(nodesUsed == parents.length) grow();
+			node = nodesUsed++;
+		}
+
+		parents[node] = NONE;
+		children1[node] = NONE;
+		children2[node] = NONE;
+		return node;
+	}
+
+	private void freeNode(int node) {
+		segments[node] = null;
+		parents[node] = freeNode;
+		heights[node] = -1;
+		freeNode = node;
+	}
+
+	private void grow() {
+		int capacity = parents.length * 2;
+		lefts = copyOf(lefts, capacity);
+		rights = copyOf(rights, capacity);
+		bottoms = copyOf(bottoms, capacity);
+		tops = copyOf(tops, capacity);
+		parents = copyOf(parents, capacity);
+		children1 = copyOf(children1, capacity);
+		children2 = copyOf(children2, capacity);
+		heights = copyOf(heights, capacity);
+
+		Segment[] newSegments = new Segment[capacity];
+		System.arraycopy(segments, 0, newSegments, 0, nodesUsed);
+		segments = newSegments;
+	}
+
+	private static int[] copyOf(int[] array, int capacity) {
+		int[] copy = new int[capacity];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, capacity));
+		return copy;
+	}
+
+	private static float[] copyOf(float[] array, int capacity) {
+		float[] copy = new float[capacity];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, capacity));
+		return copy;
+	}
+}
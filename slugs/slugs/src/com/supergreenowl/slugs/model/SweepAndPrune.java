@@ -0,0 +1,420 @@
+package com.supergreenowl.slugs.model;
+
+/**
+ * Sweep and prune broadphase that keeps track of overlapping boxes between two groups of proxies.
+ * Only pairs made of one proxy from each group are tracked.
+ * <p>Box end points are kept sorted on each axis between calls to {@link #findPairs()} and re-sorted
+ * with an insertion sort. Boxes move very little between ticks so the end points are nearly sorted
+ * already and the sort is close to linear. Two boxes can only start or stop overlapping when an end point
+ * of one passes an end point of the other, so pairs are added and removed as end points are swapped
+ * and are otherwise kept from one call to the next.
+ * @author Luke
+ *
+ */
+class SweepAndPrune {
+
+	/** Group of proxies that pairs are reported for. */
+	static final int GROUP_PRIMARY = 0;
+	/** Group of proxies that primary proxies are tested against. */
+	static final int GROUP_SECONDARY = 1;
+
+	/** Returned when there are no (more) pairs or a proxy has been destroyed. */
+	static final int NONE = -1;
+
+	private static final int DESTROYED = -1;
+	private static final int INITIAL_CAPACITY = 32;
+	private static final int X = 0, Y = 1;
+
+	// proxies
+	private float[] minX = new float[INITIAL_CAPACITY], maxX = new float[INITIAL_CAPACITY];
+	private float[] minY = new float[INITIAL_CAPACITY], maxY = new float[INITIAL_CAPACITY];
+	private int[] groups = new int[INITIAL_CAPACITY];
+	private int[] data = new int[INITIAL_CAPACITY];
+	private int[] firstPairs = new int[INITIAL_CAPACITY];
+	private int proxiesUsed = 0;
+
+	// proxy ids that can be reused now, and ids that still have end points waiting to be removed
+	private int[] freeProxies = new int[INITIAL_CAPACITY];
+	private int freeCount = 0;
+	private int[] destroyedProxies = new int[INITIAL_CAPACITY];
+	private int destroyedCount = 0;
+
+	// end points sorted per axis - each is a proxy id shifted left one bit with the low bit set for a max end point
+	private int[][] endPoints = { new int[INITIAL_CAPACITY * 2], new int[INITIAL_CAPACITY * 2] };
+	private float[][] endPointValues = { new float[INITIAL_CAPACITY * 2], new float[INITIAL_CAPACITY * 2] };
+	private int endPointCount = 0;
+
+	/* Pairs are slots linked into a list for each of their two proxies and into a hash bucket.
+	 * Slots of removed pairs are reused.
+	 */
+	private int[] pairPrimaries = new int[INITIAL_CAPACITY], pairSecondaries = new int[INITIAL_CAPACITY];
+	private int[] nextPairs = new int[INITIAL_CAPACITY], previousPairs = new int[INITIAL_CAPACITY];
+	private int[] nextSecondaryPairs = new int[INITIAL_CAPACITY], previousSecondaryPairs = new int[INITIAL_CAPACITY];
+	private int[] nextInBucket = new int[INITIAL_CAPACITY];
+	private int[] firstSecondaryPairs = new int[INITIAL_CAPACITY];
+	private int[] pairBuckets = newEmpty(INITIAL_CAPACITY);
+	private int pairSlotsUsed = 0;
+	private int pairCount = 0;
+	private int freePair = NONE;
+
+	/**
+	 * Creates a new proxy. The proxy has empty bounds at the origin until {@link #setBounds} is called.
+	 * @param group Group the proxy belongs to; either {@link #GROUP_PRIMARY} or {@link #GROUP_SECONDARY}.
+	 * @param userData Id of the object that the proxy represents.
+	 * @return Proxy id.
+	 */
+	int createProxy(int group, int userData) {
+		if(group != GROUP_PRIMARY && group != GROUP_SECONDARY) throw new IllegalArgumentException("unknown group");
+
+		int proxy;
+		if(freeCount > 0) proxy = freeProxies[--freeCount];
+		else {
+			if(proxiesUsed == groups.length) growProxies();
+			proxy = proxiesUsed++;
+		}
+
+		groups[proxy] = group;
+		data[proxy] = userData;
+		minX[proxy] = maxX[proxy] = minY[proxy] = maxY[proxy] = 0f;
+		firstPairs[proxy] = NONE;
+		firstSecondaryPairs[proxy] = NONE;
+
+		if(endPointCount + 2 > endPoints[X].length) growEndPoints();
+		// new end points are appended and sorted into place on the next sweep
+		for(int axis = X; axis <= Y; axis++) {
+			endPoints[axis][endPointCount] = proxy << 1;
+			endPoints[axis][endPointCount + 1] = (proxy << 1) | 1;
+		}
+		endPointCount += 2;
+
+		return proxy;
+	}
+
+	/**
+	 * Destroys a proxy. The proxy id must not be used again by the caller.
+	 * Any pairs the proxy is in end immediately.
+	 * @param proxy Proxy to destroy.
+	 */
+	void destroyProxy(int proxy) {
+		if(groups[proxy] == DESTROYED) throw new IllegalStateException("proxy already destroyed");
+
+		if(groups[proxy] == GROUP_PRIMARY) {
+			while(firstPairs[proxy] != NONE) removePair(firstPairs[proxy]);
+		}
+		else {
+			while(firstSecondaryPairs[proxy] != NONE) removePair(firstSecondaryPairs[proxy]);
+		}
+
+		groups[proxy] = DESTROYED;
+		data[proxy] = NONE;
+
+		// id is recycled once its end points have been dropped on the next sweep
+		if(destroyedCount == destroyedProxies.length) destroyedProxies = copyOf(destroyedProxies, destroyedCount * 2);
+		destroyedProxies[destroyedCount++] = proxy;
+	}
+
+	/**
+	 * Sets the bounds of a proxy.
+	 * @param proxy Proxy to update.
+	 * @param left
+	 * @param right
+	 * @param bottom
+	 * @param top
+	 */
+	void setBounds(int proxy, float left, float right, float bottom, float top) {
+		minX[proxy] = left;
+		maxX[proxy] = right;
+		minY[proxy] = bottom;
+		maxY[proxy] = top;
+	}
+
+	/**
+	 * Gets the id of the object represented by a proxy.
+	 * @param proxy Proxy id.
+	 * @return User data passed when the proxy was created or {@link #NONE} if the proxy has been destroyed.
+	 */
+	int getData(int proxy) {
+		return data[proxy];
+	}
+
+	/**
+	 * Re-sorts all end points and updates the primary/secondary pairs of proxies whose bounds overlap.
+	 * Bounds are inclusive so touching boxes count as overlapping, the same as {@link Box#intersects(Box)}.
+	 */
+	void findPairs() {
+		removeDestroyedEndPoints();
+		sortEndPoints(X);
+		sortEndPoints(Y);
+	}
+
+	/**
+	 * Gets the first pair for a primary proxy as of the last call to {@link #findPairs()}.
+	 * @param proxy Primary proxy.
+	 * @return Pair id or {@link #NONE}.
+	 */
+	int getFirstPair(int proxy) {
+		return firstPairs[proxy];
+	}
+
+	/**
+	 * Gets the next pair for the same primary proxy.
+	 * @param pair Current pair id.
+	 * @return Next pair id or {@link #NONE}.
+	 */
+	int getNextPair(int pair) {
+		return nextPairs[pair];
+	}
+
+	/**
+	 * Gets the secondary proxy in a pair.
+	 * @param pair Pair id.
+	 * @return Secondary proxy id.
+	 */
+	int getPairProxy(int pair) {
+		return pairSecondaries[pair];
+	}
+
+	/**
+	 * Destroys all proxies and pairs.
+	 */
+	void clear() {
+		proxiesUsed = 0;
+		freeCount = 0;
+		destroyedCount = 0;
+		endPointCount = 0;
+
+		for(int i = 0; i < pairBuckets.length; i++) pairBuckets[i] = NONE;
+		pairSlotsUsed = 0;
+		pairCount = 0;
+		freePair = NONE;
+	}
+
+	/**
+	 * Determines if the bounds of two proxies overlap on both axes.
+	 */
+	private boolean overlaps(int a, int b) {
+		return minX[a] <= maxX[b] && maxX[a] >= minX[b] && minY[a] <= maxY[b] && maxY[a] >= minY[b];
+	}
+
+	private int hash(int primary, int secondary) {
+		return ((primary * 73856093) ^ (secondary * 19349663)) & (pairBuckets.length - 1);
+	}
+
+	private int findPair(int primary, int secondary) {
+		for(int pair = pairBuckets[hash(primary, secondary)]; pair != NONE; pair = nextInBucket[pair]) {
+			if(pairPrimaries[pair] == primary && pairSecondaries[pair] == secondary) return pair;
+		}
+		return NONE;
+	}
+
+	private void addPair(int primary, int secondary) {
+		if(findPair(primary, secondary) != NONE) return;
+
+		int pair;
+		if(freePair != NONE) {
+			pair = freePair;
+			freePair = nextInBucket[pair];
+		}
+		else {
+			if(pairSlotsUsed == pairPrimaries.length) growPairs();
+			pair = pairSlotsUsed++;
+		}
+
+		pairPrimaries[pair] = primary;
+		pairSecondaries[pair] = secondary;
+
+		// link into the list of each proxy
+		previousPairs[pair] = NONE;
+		nextPairs[pair] = firstPairs[primary];
+		if(firstPairs[primary] != NONE) previousPairs[firstPairs[primary]] = pair;
+		firstPairs[primary] = pair;
+
+		previousSecondaryPairs[pair] = NONE;
+		nextSecondaryPairs[pair] = firstSecondaryPairs[secondary];
+		if(firstSecondaryPairs[secondary] != NONE) previousSecondaryPairs[firstSecondaryPairs[secondary]] = pair;
+		firstSecondaryPairs[secondary] = pair;
+
+		int bucket = hash(primary, secondary);
+		nextInBucket[pair] = pairBuckets[bucket];
+		pairBuckets[bucket] = pair;
+
+		pairCount++;
+		if(pairCount > pairBuckets.length) rehash(pairBuckets.length * 2);
+	}
+
+	private void removePair(int pair) {
+		int primary = pairPrimaries[pair];
+		int secondary = pairSecondaries[pair];
+
+		if(previousPairs[pair] != NONE) nextPairs[previousPairs[pair]] = nextPairs[pair];
+		else firstPairs[primary] = nextPairs[pair];
+		if(nextPairs[pair] != NONE) previousPairs[nextPairs[pair]] = previousPairs[pair];
+
+		if(previousSecondaryPairs[pair] != NONE) nextSecondaryPairs[previousSecondaryPairs[pair]] = nextSecondaryPairs[pair];
+		else firstSecondaryPairs[secondary] = nextSecondaryPairs[pair];
+		if(nextSecondaryPairs[pair] != NONE) previousSecondaryPairs[nextSecondaryPairs[pair]] = previousSecondaryPairs[pair];
+
+		int bucket = hash(primary, secondary);
+		if(pairBuckets[bucket] == pair) pairBuckets[bucket] = nextInBucket[pair];
+		else {
+			int p = pairBuckets[bucket];
+			while(nextInBucket[p] != pair) p = nextInBucket[p];
+			nextInBucket[p] = nextInBucket[pair];
+		}
+
+		nextInBucket[pair] = freePair;
+		freePair = pair;
+		pairCount--;
+	}
+
+	/**
+	 * Handles an end point moving below another end point on an axis.
+	 * @param moving End point that moved down.
+	 * @param passed End point that it moved past.
+	 */
+	private void onSwap(int moving, int passed) {
+		int a = moving >> 1, b = passed >> 1;
+		if(groups[a] == groups[b]) return;
+
+		boolean isMovingMax = (moving & 1) == 1;
+		boolean isPassedMax = (passed & 1) == 1;
+		if(isMovingMax == isPassedMax) return;
+
+		int primary = groups[a] == GROUP_PRIMARY ? a : b;
+		int secondary = primary == a ? b : a;
+
+		if(isPassedMax) {
+			// a min end point passed a max end point - the boxes may now overlap
+			if(overlaps(a, b)) addPair(primary, secondary);
+		}
+		else {
+			// a max end point passed a min end point - the boxes no longer overlap on this axis
+			int pair = findPair(primary, secondary);
+			if(pair != NONE) removePair(pair);
+		}
+	}
+
+	/**
+	 * Drops the end points of destroyed proxies and makes their ids available again.
+	 */
+	private void removeDestroyedEndPoints() {
+		if(destroyedCount == 0) return;
+
+		int kept = 0;
+		for(int axis = X; axis <= Y; axis++) {
+			int[] points = endPoints[axis];
+			kept = 0;
+			for(int i = 0; i < endPointCount; i++) {
+				int endPoint = points[i];
+				if(groups[endPoint >> 1] == DESTROYED) continue;
+				points[kept++] = endPoint;
+			}
+		}
+		endPointCount = kept;
+
+		if(freeCount + destroyedCount > freeProxies.length) freeProxies = copyOf(freeProxies, freeCount + destroyedCount);
+		System.arraycopy(destroyedProxies, 0, freeProxies, freeCount, destroyedCount);
+		freeCount += destroyedCount;
+		destroyedCount = 0;
+	}
+
+	/**
+	 * Refreshes end point values on an axis from the proxy bounds and insertion sorts them,
+	 * updating pairs as end points pass each other.
+	 * At equal values min end points sort before max end points so that touching boxes overlap.
+	 */
+	private void sortEndPoints(int axis) {
+		int[] points = endPoints[axis];
+		float[] values = endPointValues[axis];
+		float[] mins = axis == X ? minX : minY;
+		float[] maxes = axis == X ? maxX : maxY;
+
+		for(int i = 0; i < endPointCount; i++) {
+			int endPoint = points[i];
+			int proxy = endPoint >> 1;
+			values[i] = (endPoint & 1) == 1 ? maxes[proxy] : mins[proxy];
+		}
+
+		for(int i = 1; i < endPointCount; i++) {
+			int endPoint = points[i];
+			float value = values[i];
+			int isMax = endPoint & 1;
+
+			int j = i - 1;
+			while(j >= 0 && (values[j] > value || (values[j] == value && (points[j] & 1) > isMax))) {
+				onSwap(endPoint, points[j]);
+				points[j + 1] = points[j];
+				values[j + 1] = values[j];
+				j--;
+			}
+
+			points[j + 1] = endPoint;
+			values[j + 1] = value;
+		}
+	}
+
+	private void rehash(int buckets) {
+		pairBuckets = newEmpty(buckets);
+
+		// relink every live pair - free slots are chained through nextInBucket so mark them first
+		boolean[] isFree = new boolean[pairSlotsUsed];
+		for(int pair = freePair; pair != NONE; pair = nextInBucket[pair]) isFree[pair] = true;
+
+		for(int pair = 0; pair < pairSlotsUsed; pair++) {
+			if(isFree[pair]) continue;
+			int bucket = hash(pairPrimaries[pair], pairSecondaries[pair]);
+			nextInBucket[pair] = pairBuckets[bucket];
+			pairBuckets[bucket] = pair;
+		}
+	}
+
+	private void growProxies() {
+		int capacity = groups.length * 2;
+		minX = copyOf(minX, capacity);
+		maxX = copyOf(maxX, capacity);
+		minY = copyOf(minY, capacity);
+		maxY = copyOf(maxY, capacity);
+		groups = copyOf(groups, capacity);
+		firstPairs = copyOf(firstPairs, capacity);
+		firstSecondaryPairs = copyOf(firstSecondaryPairs, capacity);
+		data = copyOf(data, capacity);
+	}
+
+	private void growEndPoints() {
+		int capacity = endPoints[X].length * 2;
+		for(int axis = X; axis <= Y; axis++) {
+			endPoints[axis] = copyOf(endPoints[axis], capacity);
+			endPointValues[axis] = copyOf(endPointValues[axis], capacity);
+		}
+	}
+
+	private void growPairs() {
+		int capacity = pairPrimaries.length * 2;
+		pairPrimaries = copyOf(pairPrimaries, capacity);
+		pairSecondaries = copyOf(pairSecondaries, capacity);
+		nextPairs = copyOf(nextPairs, capacity);
+		previousPairs = copyOf(previousPairs, capacity);
+		nextSecondaryPairs = copyOf(nextSecondaryPairs, capacity);
+		previousSecondaryPairs = copyOf(previousSecondaryPairs, capacity);
+		nextInBucket = copyOf(nextInBucket, capacity);
+	}
+
+	private static int[] newEmpty(int capacity) {
+		int[] array = new int[capacity];
+		for(int i = 0; i < capacity; i++) array[i] = NONE;
+		return array;
+	}
+
+	private static int[] copyOf(int[] array, int capacity) {
+		int[] copy = new int[capacity];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, capacity));
+		return copy;
+	}
+
+	private static float[] copyOf(float[] array, int capacity) {
+		int length = Math.min(array.length, capacity);
+		float[] copy = new float[capacity];
+		System.arraycopy(array, 0, copy, 0, length);
+		return copy;
+	}
+}
@@ -0,0 +1,111 @@
+package com.supergreenowl.slugs.model;
+
+/**
+ * Decides how often each creature thinks, so that the cost of creature AI per tick stays flat as the population grows.
+ * <p>Creatures still move every tick but only think once per period. The period depends on the level of detail
+ * that the creature needs: creatures near the runner think most often, creatures further away less often and
+ * creatures that have not yet entered the world least often.
+ * <p>Each creature's thinking is offset within the period by a phase taken from its id, so creatures with the
+ * same period take turns rather than all thinking on the same tick. A creature thinks on the first tick that
+ * crosses one of its think times, so changing period never makes a creature skip more than one period.
+ * <p>Some decisions, such as centring on a line or turning at a waypoint, have to be made as the creature passes
+ * a point, and would be missed by a creature that only thinks once a period. Each creature's behaviour predicts
+ * when it next needs to decide, and a creature also thinks on the first tick after its head passes that time.
+ * @author Luke
+ *
+ */
+public class ThinkScheduler {
+
+	/**
+	 * Period for creatures that think on every tick.
+	 */
+	public static final float EVERY_TICK = 0f;
+
+	private static final float DEFAULT_NEAR_DISTANCE = 80f;
+	private static final float DEFAULT_NEAR_PERIOD = EVERY_TICK;
+	private static final float DEFAULT_FAR_PERIOD = 1f / 10f;
+	private static final float DEFAULT_OFF_SCREEN_PERIOD = 1f / 4f;
+
+	// spreads consecutive ids evenly over a period
+	private static final float GOLDEN_RATIO_FRACTION = 0.618034f;
+
+	private float nearDistance = DEFAULT_NEAR_DISTANCE;
+	private float nearPeriod = DEFAULT_NEAR_PERIOD;
+	private float farPeriod = DEFAULT_FAR_PERIOD;
+	private float offScreenPeriod = DEFAULT_OFF_SCREEN_PERIOD;
+	private float periodScale = 1f;
+
+	/**
+	 * Sets how often creatures think.
+	 * @param nearPeriod Seconds between thinks for creatures near the runner, or {@link #EVERY_TICK}.
+	 * @param farPeriod Seconds between thinks for creatures far from the runner, or {@link #EVERY_TICK}.
+	 * @param offScreenPeriod Seconds between thinks for creatures that have not entered the world, or {@link #EVERY_TICK}.
+	 */
+	public void setPeriods(float nearPeriod, float farPeriod, float offScreenPeriod) {
+		if(nearPeriod < 0f || farPeriod < 0f || offScreenPeriod < 0f)
+			throw new IllegalArgumentException("periods must not be negative");
+
+		this.nearPeriod = nearPeriod;
+		this.farPeriod = farPeriod;
+		this.offScreenPeriod = offScreenPeriod;
+	}
+
+	/**
+	 * Sets a multiplier for every period, so that creatures can be made to think less often without
+	 * changing the periods themselves. Periods of {@link #EVERY_TICK} are not affected.
+	 * @param periodScale Multiplier, where 1 uses the periods as set.
+	 */
+	public void setPeriodScale(float periodScale) {
+		if(periodScale <= 0f) throw new IllegalArgumentException("period scale must be positive");
+		this.periodScale = periodScale;
+	}
+
+	/**
+	 * Sets the distance from the runner within which creatures are near it.
+	 * @param nearDistance Distance between the centres of the creature's and the runner's heads.
+	 */
+	public void setNearDistance(float nearDistance) {
+		if(nearDistance < 0f) throw new IllegalArgumentException("near distance must not be negative");
+		this.nearDistance = nearDistance;
+	}
+
+	/**
+	 * Determines if a creature should think on the current tick.
+	 * This only reads the creature and the arguments so it can be called for many creatures at once.
+	 * @param c Creature.
+	 * @param runnerPosition Centre of the runner's head.
+	 * @param time Time at the end of the current tick.
+	 * @return True if the creature should think.
+	 */
+	boolean isThinkDue(Creature c, Point runnerPosition, float time) {
+		float period = getPeriod(c, runnerPosition) * periodScale;
+		if(period <= EVERY_TICK || c.lastThinkTime == Float.NEGATIVE_INFINITY || c.isDecisionDue) return true;
+
+		// thinks whenever a think time has passed since it last thought
+		float phase = (c.getId() * GOLDEN_RATIO_FRACTION) % 1f;
+		return Math.floor(time / period - phase) != Math.floor(c.lastThinkTime / period - phase);
+	}
+
+	/**
+	 * Records when a creature next needs to make a decision, so that it thinks once that time has passed
+	 * however long its period is. This must be called after the creature's move has been applied, so that
+	 * the prediction starts from where its head will be when it next thinks.
+	 * @param c Creature.
+	 * @param time Time at the end of the current tick.
+	 */
+	void scheduleDecision(Creature c, float time) {
+		// the head has passed the time predicted after the last move
+		boolean isPassed = time >= c.decisionTime;
+		c.decisionTime = time + c.getTimeToNextDecision();
+		if(isPassed || c.decisionTime <= time) c.isDecisionDue = true;
+	}
+
+	private float getPeriod(Creature c, Point runnerPosition) {
+		if(!c.hasEnteredWorld()) return offScreenPeriod;
+
+		Point position = c.getHeadBox().getCentre();
+		float dx = position.getX() - runnerPosition.getX();
+		float dy = position.getY() - runnerPosition.getY();
+		return dx * dx + dy * dy <= nearDistance * nearDistance ? nearPeriod : farPeriod;
+	}
+}
@@ -1,6 +1,6 @@
 package com.supergreenowl.slugs.model;
 
-import java.util.Iterator;
+import com.badlogic.gdx.utils.IntArray;
 
 /**
  * A creature that cleans up any lines it moves over.
@@ -17,6 +17,9 @@ public class Worker extends Creature {
 	private static final float SCARE_DISTANCE = 30f;
 	private static final float SAFE_DISTANCE = 40f;
 	
+	// not scared of workers
+	private static final int SCARY_TYPES = CreatureType.ALL & ~CreatureType.WORKER.getMask();
+	
 	private FollowWaypointsBehaviour normalBehaviour = new FollowWaypointsBehaviour(this);
 	private FollowLineBehaviour followBehaviour = new FollowLineBehaviour(this);
 	private RunFromBehaviour scaredBehaviour = new RunFromBehaviour(this);
@@ -24,37 +27,46 @@ public class Worker extends Creature {
 	
 	private boolean isScared = false;
 	
+	private final IntArray nearbyLines = new IntArray(false, 8);
+	private final Box lineBox = new Box();
+	private final Point scarerPosition = new Point();
+	
 	public Worker() {
-		super(WORKER_SIZE, WORKER_SIZE, true, false);
+		super(CreatureType.WORKER, WORKER_SIZE, WORKER_SIZE);
 		setSpeed(SPEED_NORMAL);
 	}
 
 	@Override
-	public void move(float time) {
-		super.move(time);
+	void applyMove() {
+		super.applyMove();
 		
 		// Cleanup any lines that were moved over
+		// only lines paired with this worker by the world's broadphase can have been touched
 		Box lastMove = getLastMove();
 		World w = getWorld();
-		Iterator<Line> lineIterator = w.getLines().iterator();
+		LineStore lines = w.getLines();
+		nearbyLines.clear();
+		w.getLinesNear(this, nearbyLines);
+		
+		int nextIndex = 0;
+		int line;
 		
-		while(lineIterator.hasNext()) {
-			Line line = lineIterator.next();
-			Box b = line.getBoundingBox();
+		while((line = getNextNearbyLine(lines, nextIndex)) != LineStore.NONE) {
+			int index = lines.getIndex(line);
+			nextIndex = index + 1;
+			
+			Box b = lines.getBoundingBox(index, lineBox);
 			if(lastMove.intersects(b)) {
 				if(lastMove.contains(b)) {
 					// just ate the entire line - remove it from world
-					lineIterator.remove();
-					if(line.getOwner() != null) line.getOwner().removeLine();
-					followBehaviour.setLine(null);
-					w.getLinePool().free(line);
+					// the last line in the world takes its index so look at that index again
+					nextIndex = index;
+					followBehaviour.setLine(LineStore.NONE);
+					w.removeLine(line);
 				}
 				else {
-					Line newLine = line.removeIntersection(lastMove, w.getLinePool());
-					// If new line was created by cutting line in two, add it to world
-					if(newLine != null) {
-						w.addLine(newLine);
-					}
+					// any new line created by cutting line in two is queued in the world
+					w.cutLine(line, lastMove);
 					
 					// won't follow when scared
 					if(!isScared) {
@@ -67,7 +79,7 @@ public class Worker extends Creature {
 		}
 				
 		// Flush the lines queue so that any other workers
-		// yet to move are aware of the new line (if any)
+		// yet to apply their moves are aware of the new line (if any)
 		w.flushLinesQueue();
 	}
 	
@@ -80,6 +92,55 @@ public class Worker extends Creature {
 		behaviour = normalBehaviour;
 		isScared = false;
 		setSpeed(SPEED_NORMAL);
+		nearbyLines.clear();
+	}
+	
+	@Override
+	float getTimeToNextEvent(float horizon) {
+		float time = Math.min(super.getTimeToNextEvent(horizon), getTimeToNextDecision());
+		if(time <= 0f) return 0f;
+		
+		World w = getWorld();
+		Point p = getHeadPosition();
+		
+		// other creatures cannot close the distance faster than this
+		float closingSpeed = getSpeed() + w.getMaxSpeed(SCARY_TYPES);
+		
+		if(closingSpeed > 0f) {
+			float radius = isScared ? SAFE_DISTANCE : SCARE_DISTANCE;
+			Creature c = w.findNearestCreature(p, radius + closingSpeed * horizon, SCARY_TYPES);
+			
+			// when scared with nothing nearby, the worker feels safe on its next think
+			if(c == null) time = isScared ? 0f : Math.min(time, horizon);
+			else {
+				Point other = c.getHeadPosition();
+				float dx = other.getX() - p.getX();
+				float dy = other.getY() - p.getY();
+				float distance = (float)Math.sqrt(dx * dx + dy * dy);
+				
+				// scared until every scary creature is beyond the safe distance, so the nearest is the earliest it could be
+				if(isScared) time = Math.min(time, distance > radius ? 0f : (radius - distance) / closingSpeed);
+				else time = Math.min(time, Math.max(0f, (distance - radius) / closingSpeed));
+			}
+		}
+		
+		// running into a line starts following it
+		if(!isScared) {
+			time = Math.min(time, w.getTimeToLineContact(getHeadBox(), getDirection(),
+					getSpeed(), LineStore.NONE, horizon));
+		}
+		
+		return time;
+	}
+	
+	@Override
+	float getTimeToNextDecision() {
+		return behaviour.getTimeToNextDecision();
+	}
+	
+	@Override
+	float getMaxMoveDistance(float time) {
+		return SPEED_SCARED * getSpeedMultiplier() * time;
 	}
 
 	@Override
@@ -88,7 +149,7 @@ public class Worker extends Creature {
 		else checkIfScared();
 		
 		if(behaviour == followBehaviour && !followBehaviour.hasLine()) {
-			followBehaviour.setLine(null);
+			followBehaviour.setLine(LineStore.NONE);
 			setSpeed(SPEED_NORMAL);
 			behaviour = normalBehaviour;
 		}
@@ -97,31 +158,23 @@ public class Worker extends Creature {
 	}
 	
 	private void checkIfScared() {
-		for(Creature c : getWorld().getCreatures()) {
-			if(c instanceof Worker) continue; // not scared of workers
-			
-			float distance = getHead().getPosition().getDistance(c.getHead().getPosition());
+		World w = getWorld();
+		Creature c = w.findNearestCreature(getHeadPosition(), SCARE_DISTANCE, SCARY_TYPES);
+		
+		if(c != null) {
+			isScared = true;
+			setSpeed(SPEED_SCARED);
+			followBehaviour.setLine(LineStore.NONE);
 			
-			if(distance <= SCARE_DISTANCE) {
-				isScared = true;
-				setSpeed(SPEED_SCARED);
-				followBehaviour.setLine(null);
-				scaredBehaviour.setScarer(c);
-				behaviour = scaredBehaviour;
-				break;
-			}
+			// the scarer may be moving at the same time so only where it was before moving can be used
+			scaredBehaviour.setScarer(w.getCreaturePosition(c, scarerPosition));
+			behaviour = scaredBehaviour;
 		}
 	}
 	
 	private void checkIfSafe() {
 		// if any scary creatures are within safety difference, keep being scared
-		Point p = getHead().getPosition();
-		for(Creature c : getWorld().getCreatures()) {
-			if(c instanceof Worker) continue; // not scared of workers
-			
-			float distance = p.getDistance(c.getHead().getPosition());
-			if(distance <= SAFE_DISTANCE) return;
-		}
+		if(getWorld().isCreatureWithin(getHeadPosition(), SAFE_DISTANCE, SCARY_TYPES)) return;
 		
 		// nothing within safety distance - safe now
 		isScared = false;
@@ -129,4 +182,30 @@ public class Worker extends Creature {
 		normalBehaviour.recalculateCourse();
 		behaviour = normalBehaviour;
 	}
+	
+	/**
+	 * Gets the nearby line with the lowest index in the world that is at or after the specified index.
+	 * Visiting nearby lines in index order handles them in the same order as a scan of every line
+	 * in the world would, so the line that ends up being followed does not depend on the broadphase.
+	 * @param lines Lines in the world.
+	 * @param fromIndex Lowest index to consider.
+	 * @return Line handle or {@link LineStore#NONE} if there are no more nearby lines.
+	 */
+	private int getNextNearbyLine(LineStore lines, int fromIndex) {
+		int next = LineStore.NONE;
+		int nextIndex = Integer.MAX_VALUE;
+		
+		for(int i = 0, n = nearbyLines.size; i < n; i++) {
+			int l = nearbyLines.get(i);
+			int index = lines.getIndex(l);
+			
+			// removed lines have no index and pending lines are after the live lines
+			if(index >= fromIndex && index < lines.size() && index < nextIndex) {
+				next = l;
+				nextIndex = index;
+			}
+		}
+		
+		return next;
+	}
 }
@@ -1,13 +1,14 @@
 package com.supergreenowl.slugs.model;
 
-import java.util.Iterator;
-import java.util.Random;
-
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.IntArray;
 import com.supergreenowl.sgdx.GameClock;
 import com.supergreenowl.sgdx.Clock;
+import com.supergreenowl.sgdx.RandomSource;
 import com.supergreenowl.sgdx.Resettable;
+import com.supergreenowl.sgdx.SequentialTaskRunner;
+import com.supergreenowl.sgdx.TaskRunner;
+import com.supergreenowl.sgdx.TimerWheel;
 
 /**
  * The world in which the game occurs.
@@ -27,54 +28,171 @@ public class World implements Resettable {
 	private static final float DIFFICULTY_INCREASE_PER_LEVEL = 0.2f;
 	
 	/**
-	 * Pseudo-random number generator instance for controlling randomised events
+	 * Size of a creature grid cell - about the length of the largest creatures.
 	 */
-	public static final Random generator = new Random();
-
+	private static final float GRID_CELL_SIZE = 24f;
+	private static final int GRID_BUCKETS = 512;
+	
+	/**
+	 * Shortest step taken when advancing to the next event, so that events that are due keep time moving.
+	 */
+	private static final float MIN_EVENT_STEP = 1f / 240f;
+	
+	/**
+	 * Longest step taken when fast forwarding, which bounds how stale events caused by new lines can get.
+	 */
+	private static final float FAST_FORWARD_MAX_STEP = 1f / 10f;
+	
+	// timers are for spawns and level ups, so only need to be as fine as a tick
+	private static final float TIMER_RESOLUTION = 1f / 60f;
+	private static final int TIMER_CAPACITY = 8;
+	
+	// event keys for things other than creatures - creature keys are offset by their id
+	private static final int EVENT_WORKER_SPAWN = 0;
+	private static final int EVENT_LAYER_SPAWN = 1;
+	private static final int EVENT_LEVEL_UP = 2;
+	private static final int EVENT_FIRST_CREATURE = 3;
+	
+	private static final Direction[] DIRECTIONS = Direction.values();
+	
 	private final float width, height;
 	
+	// source of all randomised events in this world - everything else follows from its seed
+	private final long seed;
+	private final RandomSource random;
+	
 	private float difficultyModifier = 1f;
 	private int level = 0;
 	private float timeOfNextLevelUp = 0f;
 
-	private Navigator navigator = new Navigator(this);
+	private final Navigator navigator;
+	
+	private final WorkerNest workerNest;
+	private final LayerNest layerNest;
 	
-	private WorkerNest workerNest = new WorkerNest(this);
-	private LayerNest layerNest = new LayerNest(this);
+	// nest of each type of creature, or null for types that are not spawned
+	private final Nest<?>[] nests = new Nest<?>[CreatureType.values().length];
 
-	private Array<Line> lines = new Array<Line>(false, 32);
-	private Array<Line> linesToAdd = new Array<Line>(false, 8);
+	private LineStore lines = new LineStore();
+	
+	private LineIndex lineIndex = new LineIndex(lines);
+	private IntArray nearbyLines = new IntArray(false, 8);
+	private Box lineBox = new Box();
+	
+	/* Creatures that eat lines are primary broadphase proxies and lines are secondary proxies.
+	 * Pairs are found once per tick before creatures move. Lines added to the world
+	 * while creatures are moving are not covered by those pairs so are tracked separately.
+	 */
+	private SweepAndPrune broadphase = new SweepAndPrune();
+	private Box broadphaseBox = new Box();
+	private IntArray lateLines = new IntArray(false, 8);
+	private boolean areCreaturesMoving = false;
 	
-	/* To workaround the fact that Array<T> doesn't support concurrent iteration
-	 * (and because it is apparently slightly quicker) all iterations of the
-	 * creatures array within this class should use for(int i = 0, n = creatures.size; i < n; i++)...
+	/* The registry's iterator doesn't support concurrent iteration, so all iterations of the
+	 * creatures within this class should use for(int i = 0, n = creatures.size(); i < n; i++)...
 	 * syntax. That lets the publicly exposed iterator be used externally.
+	 * Each system that only applies to creatures with a component walks the registry's list for that component.
 	 */
-	private Array<Creature> creatures = new Array<Creature>(false, 32);
+	private CreatureRegistry creatures = new CreatureRegistry();
 	private Array<Creature> creaturesToRemove = new Array<Creature>(false, 8);
 	
+	private CreatureGrid creatureGrid = new CreatureGrid(GRID_CELL_SIZE, GRID_BUCKETS);
+	
+	/* Each update moves every creature in two phases. First every creature thinks and moves on its own,
+	 * possibly in parallel, against the world as it was before anything moved. Then the effects of each move
+	 * on the rest of the world - laying, cutting and eating lines and updating the indexes - are applied
+	 * one creature at a time in creature order, so the result does not depend on how the moves were run.
+	 */
+	private TaskRunner taskRunner = new SequentialTaskRunner();
+	private float moveTime;
+	
+	/* Creatures think less often the less they matter, using the runner's position from before anything moved.
+	 * Steps taken by advance() already end at each creature's next decision so every creature thinks on every one.
+	 */
+	private final ThinkScheduler thinkScheduler = new ThinkScheduler();
+	private final Point runnerPosition = new Point();
+	private boolean isAdvancing = false;
+	
+	// small lines are cleaned up at most once per period; 0 cleans up on every update
+	private float lineCleanUpPeriod = 0f;
+	private float nextLineCleanUp = 0f;
+	private final TaskRunner.Task moveTask = new TaskRunner.Task() {
+		@Override
+		public void run(int index) {
+			creatures.get(index).move(moveTime);
+		}
+	};
+	
+	/* Creatures that can eat are primary contact proxies and creatures that can be eaten are secondary
+	 * proxies, bounded by the area their head swept in the last move. Pairs are kept between ticks
+	 * so only creatures whose moves start or stop overlapping cause any work.
+	 */
+	private SweepAndPrune contacts = new SweepAndPrune();
+	
+	// every segment of every creature in this world
+	private SegmentTree segmentTree = new SegmentTree();
+	
+	// collisions are tested over the whole of each move, not just where creatures end up
+	private Box sweptBox = new Box();
+	
+	// fastest speed of each type of creature as of the last update
+	private float[] maxSpeeds = new float[CreatureType.values().length];
+	
+	/* When advancing between events, every creature has an event scheduled. A creature's event
+	 * is only recalculated when it falls due or the creature changes direction or speed.
+	 */
+	private EventQueue events = new EventQueue();
+	private IntArray scheduledMotionVersions = new IntArray(true, 32);
+	private Box contactBox = new Box();
+	
 	private Runner runner;
 
 	private boolean isGameOver = false;
 	private GameOverReason gameOverReason = GameOverReason.NONE;
+	private float gameOverTime = 0f;
 	
 	private GameClock clock = new GameClock();
 	
-	private Pool<Line> linePool = new Pool<Line>() {
+	// timed events fire as the clock ticks at the start of each update
+	private final TimerWheel timers = new TimerWheel(TIMER_RESOLUTION, TIMER_CAPACITY);
+	private int levelUpTimer = TimerWheel.NONE;
+	private final TimerWheel.Callback levelUp = new TimerWheel.Callback() {
 		@Override
-		protected Line newObject() {
-			return new Line();
+		public void onTimer(float time) {
+			calculateLevel();
 		}
 	};
 	
 	/**
-	 * Creates a new world with of the specified size.
+	 * Creates a new world of the specified size with a random seed.
 	 * @param width World width.
 	 * @param height World height.
 	 */
 	public World(float width, float height) {
+		this(width, height, new RandomSource().nextLong());
+	}
+	
+	/**
+	 * Creates a new world of the specified size.
+	 * Two worlds with the same seed that are updated and reset in the same way behave identically.
+	 * @param width World width.
+	 * @param height World height.
+	 * @param seed Seed for all randomised events in this world.
+	 */
+	public World(float width, float height, long seed) {
 		this.width = width;
 		this.height = height;
+		this.seed = seed;
+		this.random = new RandomSource(seed);
+		
+		clock.setTimers(timers);
+		levelUpTimer = timers.schedule(timeOfNextLevelUp, levelUp);
+		
+		navigator = new Navigator(this);
+		workerNest = new WorkerNest(this);
+		layerNest = new LayerNest(this);
+		nests[CreatureType.WORKER.ordinal()] = workerNest;
+		nests[CreatureType.LAYER.ordinal()] = layerNest;
 		
 		runner = new Runner();
 		runner.place(width / 2f, 0f, Direction.UP);
@@ -98,22 +216,106 @@ public class World implements Resettable {
 	}
 
 	/**
-	 * Gets a collection of all the lines in this world.
-	 * @return Collection of lines.
+	 * Gets the seed that this world's randomised events were generated from.
+	 * @return Seed.
 	 */
-	public Iterable<Line> getLines() {
-		return lines;
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Gets the pseudo-random number generator for randomised events in this world.
+	 * It is not thread safe so must only be used by whatever is updating this world.
+	 * @return Random number generator.
+	 */
+	public RandomSource getRandom() {
+		return random;
+	}
+	
+	/**
+	 * Sets the runner used to move creatures. Creatures are moved sequentially by default.
+	 * Worlds updated the same way behave identically whichever runner they use.
+	 * @param taskRunner Task runner.
+	 */
+	public void setTaskRunner(TaskRunner taskRunner) {
+		if(taskRunner == null) throw new IllegalArgumentException("task runner must not be null");
+		this.taskRunner = taskRunner;
+	}
+	
+	/**
+	 * Gets the scheduler that decides how often creatures in this world think when it is updated in ticks.
+	 * @return Think scheduler.
+	 */
+	public ThinkScheduler getThinkScheduler() {
+		return thinkScheduler;
+	}
+	
+	/**
+	 * Sets how often lines too small to matter are cleaned up. Small lines that have not been cleaned up
+	 * yet are still lines, so they can still be hit; cleaning up less often only saves time.
+	 * @param lineCleanUpPeriod Seconds between clean ups, or 0 to clean up on every update.
+	 */
+	public void setLineCleanUpPeriod(float lineCleanUpPeriod) {
+		if(lineCleanUpPeriod < 0f) throw new IllegalArgumentException("clean up period must not be negative");
+		this.lineCleanUpPeriod = lineCleanUpPeriod;
+	}
+	
+	/**
+	 * Sets a multiplier for the time between spawns of every type of creature.
+	 * @param spawnIntervalScale Multiplier, where 1 spawns at the normal rate.
+	 * @see Nest#setSpawnIntervalScale(float)
+	 */
+	public void setSpawnIntervalScale(float spawnIntervalScale) {
+		workerNest.setSpawnIntervalScale(spawnIntervalScale);
+		layerNest.setSpawnIntervalScale(spawnIntervalScale);
+	}
+	
+	/**
+	 * Gets the timers driven by this world's clock.
+	 * @return Timers.
+	 */
+	TimerWheel getTimers() {
+		return timers;
+	}
+	
+	/**
+	 * Determines if a creature should think during the current update. Safe to call while creatures are moving.
+	 * @param c Creature in this world.
+	 * @return True if the creature should think.
+	 */
+	boolean isThinkDue(Creature c) {
+		return isAdvancing || thinkScheduler.isThinkDue(c, runnerPosition, clock.getTime());
 	}
 
 	/**
-	 * Adds a line to this world.
-	 * Lines are not directly added but queued for until the next {@link #update(float)} or an explicit call
+	 * Gets all the lines in this world.
+	 * Lines added to the store are pending until the next {@link #update(float)} or an explicit call
 	 * to {@link #flushLinesQueue()} is made.
-	 * @param line to add.
+	 * @return Line store.
+	 */
+	public LineStore getLines() {
+		return lines;
+	}
+	
+	/**
+	 * Gets a creature that has been in this world by its id.
+	 * Creatures keep their id when they are returned to a pool so the creature may no longer be in this world.
+	 * @param id Creature id.
+	 * @return Creature or null if no creature has had that id.
+	 */
+	public Creature getCreature(int id) {
+		return creatures.getById(id);
+	}
+	
+	/**
+	 * Gets the creature that a handle refers to, if it is still in this world.
+	 * Unlike ids, handles stop resolving once a creature is removed, even if it is later reused.
+	 * @param handle Creature handle, or -1.
+	 * @return Creature or null if the creature has left this world since the handle was taken.
+	 * @see Creature#getHandle()
 	 */
-	public void addLine(Line line) {
-		// Cannot add directly as iteration might be in progress
-		linesToAdd.add(line);
+	public Creature resolveCreature(int handle) {
+		return creatures.resolve(handle);
 	}
 	
 	/**
@@ -122,7 +324,18 @@ public class World implements Resettable {
 	 */
 	public void add(Creature c) {
 		c.setWorld(this);
+		c.random.setSeed(random.nextLong());
 		creatures.add(c);
+		
+		creatureGrid.add(c);
+		for(int i = 0, n = c.getSegmentCount(); i < n; i++) segmentTree.add(c.getSegment(i));
+		
+		CreatureType type = c.getType();
+		
+		if(type.has(CreatureComponent.EATS_LINES)) c.broadphaseProxy = broadphase.createProxy(SweepAndPrune.GROUP_PRIMARY, c.id);
+		if(type.has(CreatureComponent.EATS_CREATURES)) c.eaterProxy = contacts.createProxy(SweepAndPrune.GROUP_PRIMARY, c.id);
+
+		if(type.has(CreatureComponent.EDIBLE)) c.preyProxy = contacts.createProxy(SweepAndPrune.GROUP_SECONDARY, c.id);
 	}
 
 	/**
@@ -134,6 +347,140 @@ public class World implements Resettable {
 		return creatures;
 	}
 	
+	/**
+	 * Finds the creature nearest to a point, considering only creatures of the specified types.
+	 * Distance is measured to the centre of each creature's head.
+	 * @param p Point to search from.
+	 * @param radius Maximum distance to search.
+	 * @param typeMask Mask of {@link CreatureType} bits for the creatures to consider.
+	 * @return Nearest creature or null if there are no matching creatures within the radius.
+	 */
+	public Creature findNearestCreature(Point p, float radius, int typeMask) {
+		return creatureGrid.findNearest(p.getX(), p.getY(), radius, typeMask);
+	}
+	
+	/**
+	 * Determines if there are any creatures of the specified types within a radius of a point.
+	 * Distance is measured to the centre of each creature's head.
+	 * @param p Point to search from.
+	 * @param radius Maximum distance to search.
+	 * @param typeMask Mask of {@link CreatureType} bits for the creatures to consider.
+	 * @return True if there is at least one matching creature within the radius.
+	 */
+	public boolean isCreatureWithin(Point p, float radius, int typeMask) {
+		return creatureGrid.isAnyWithin(p.getX(), p.getY(), radius, typeMask);
+	}
+
+	/**
+	 * Gets the centre of a creature's head as of the end of the last update.
+	 * Unlike the head itself, this does not change while creatures are moving.
+	 * @param c Creature in this world.
+	 * @param result Point to set to the centre.
+	 * @return The point passed in.
+	 */
+	public Point getCreaturePosition(Creature c, Point result) {
+		return creatureGrid.getCentre(c, result);
+	}
+
+	/**
+	 * Finds every segment of every creature that intersects an area.
+	 * @param area Area to search.
+	 * @param result Array to add matching segments to. Existing contents are not cleared.
+	 */
+	public void findSegments(Box area, Array<Segment> result) {
+		segmentTree.query(area, result);
+	}
+
+	/**
+	 * Finds every segment of every creature that contains a point.
+	 * @param p Point to search at.
+	 * @param result Array to add matching segments to. Existing contents are not cleared.
+	 */
+	public void findSegmentsAt(Point p, Array<Segment> result) {
+		segmentTree.query(p.getX(), p.getY(), result);
+	}
+
+	/**
+	 * Finds the first line, creature segment or world edge in a direction from a point.
+	 * Lines and segments that the point is on or inside are hit at distance 0. When a line and a segment
+	 * are at the same distance the line is reported; either is reported in preference to the world edge.
+	 * @param origin Point to cast from.
+	 * @param direction Direction to cast in.
+	 * @param ignored Creature whose segments and the line it is laying are ignored, or null to ignore nothing.
+	 * This is normally the creature doing the casting.
+	 * @param result Result to set to the first hit.
+	 * @return The result passed in.
+	 */
+	public RaycastHit raycast(Point origin, Direction direction, Creature ignored, RaycastHit result) {
+		float x = origin.getX();
+		float y = origin.getY();
+
+		// everything beyond the edge of the world is ignored
+		float edge;
+		switch(direction) {
+		case LEFT: edge = x; break;
+		case RIGHT: edge = width - x; break;
+		case DOWN: edge = y; break;
+		case UP: edge = height - y; break;
+		default: throw new IllegalStateException("What direction is that?");
+		}
+		result.setEdge(Math.max(0f, edge));
+
+		int ignoredOwner = ignored == null ? LineStore.NONE : ignored.getHandle();
+		int line = lineIndex.raycast(x, y, direction, result.getDistance(), ignoredOwner);
+		if(line != LineStore.NONE) result.setLine(line, lineIndex.getHitDistance());
+
+		Segment segment = segmentTree.raycast(x, y, direction, result.getDistance(), ignored);
+		if(segment != null) {
+			float distance = segmentTree.getHitDistance();
+			if(distance < result.getDistance() || result.getKind() == RaycastHit.Kind.EDGE)
+				result.setSegment(segment, distance);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Finds the first line, creature segment or world edge in every direction from a point.
+	 * @param origin Point to cast from.
+	 * @param ignored Creature whose segments and the line it is laying are ignored, or null to ignore nothing.
+	 * @param results Results to set, indexed by {@link Direction#ordinal()}. Must have an element for every direction.
+	 * @see #raycast(Point, Direction, Creature, RaycastHit)
+	 */
+	public void raycast(Point origin, Creature ignored, RaycastHit[] results) {
+		if(results.length < DIRECTIONS.length) throw new IllegalArgumentException("expected a result for every direction");
+
+		for(int i = 0; i < DIRECTIONS.length; i++) {
+			raycast(origin, DIRECTIONS[i], ignored, results[i]);
+		}
+	}
+
+	/**
+	 * Brings the segment tree up to date with every segment of a creature.
+	 * Called whenever a creature's segments have moved or split.
+	 * Does nothing if the creature has not been added to this world.
+	 * @param c Creature that has changed.
+	 */
+	void updateSegments(Creature c) {
+		// only a turn adds segments, at the head, so the tail is in the tree if the creature is
+		int n = c.getSegmentCount();
+		if(c.getSegment(n - 1).treeProxy == SegmentTree.NONE) return;
+
+		for(int i = 0; i < n; i++) {
+			Segment s = c.getSegment(i);
+			if(s.treeProxy == SegmentTree.NONE) segmentTree.add(s);
+			else segmentTree.update(s);
+		}
+	}
+
+	/**
+	 * Removes a segment that is no longer part of its creature from the segment tree.
+	 * @param s Segment to remove.
+	 */
+	void removeSegment(Segment s) {
+		segmentTree.remove(s);
+	}
+
 	/**
 	 * Gets a navigator constrained to this world's dimensions.
 	 * @return Navigator.
@@ -151,68 +498,262 @@ public class World implements Resettable {
 		if(isGameOver) return;
 		
 		// Turn runner towards touch
-		Segment head = runner.getHead();
-		Direction runnerDirection = head.getDirection();
+		Point head = runner.getHeadPosition();
+		Direction runnerDirection = runner.getDirection();
 		
 		if(runnerDirection.isHorizontal()) {
-			float runnerY = head.getPosition().getY();
+			float runnerY = head.getY();
 			if(y > runnerY) runner.turn(Direction.UP);
 			else if(y < runnerY) runner.turn(Direction.DOWN);
 		}
 		else {
-			float runnerX = head.getPosition().getX();
+			float runnerX = head.getX();
 			if(x < runnerX) runner.turn(Direction.LEFT);
 			else if(x > runnerX) runner.turn(Direction.RIGHT);
 		}
+		
+		// turning can split the head so the runner's indexes are out of date
+		updateSegments(runner);
+		creatureGrid.update(runner);
 	}
 	
 	/**
 	 * Updates world state.
-	 * @param elapsedTime Time in seconds since last update.
+	 * <p>The time is scaled by the clock's time scale. When the world runs faster than real time, the scaled time
+	 * is split into several ticks that are each no longer than the time passed in, so that creatures move and
+	 * think as finely as they would in real time.
+	 * @param elapsedTime Real time in seconds since last update.
+	 * @see #setTimeScale(float)
 	 */
 	public void update(float elapsedTime) {
+		float timeScale = clock.getTimeScale();
+		int ticks = timeScale > 1f ? (int)Math.ceil(timeScale) : 1;
+		float tick = elapsedTime * timeScale / ticks;
+		
+		for(int i = 0; i < ticks && !isGameOver; i++) {
+			tick(tick);
+		}
+	}
+	
+	/**
+	 * Sets how fast the world runs compared to real time.
+	 * @param timeScale Game seconds per real second, where 1 is real time.
+	 */
+	public void setTimeScale(float timeScale) {
+		clock.setTimeScale(timeScale);
+	}
+	
+	/**
+	 * Runs this world for a period of game time as fast as possible, ignoring the time scale.
+	 * <p>Nothing is drawn while fast forwarding, so the world steps straight from one event to the next
+	 * rather than in ticks the length of a frame.
+	 * @param duration Game time in seconds to run for.
+	 * @see #advance(float, float)
+	 */
+	public void fastForward(float duration) {
+		advance(duration, FAST_FORWARD_MAX_STEP);
+	}
+	
+	/**
+	 * Moves every creature and applies the effects of the moves.
+	 * @param elapsedTime Game time in seconds to tick by.
+	 */
+	private void tick(float elapsedTime) {
 		if(isGameOver) return;
-		clock.tick(elapsedTime);
+		
+		// spawns creatures and levels up
+		clock.tickGameTime(elapsedTime);
 
 		flushLinesQueue();
-
-		// Generate creatures
-		workerNest.spawnCreatures(elapsedTime);
-		layerNest.spawnCreatures(elapsedTime);
 		
-		for(int i = 0, n = creatures.size; i < n; i++) {
+		updateBroadphase(elapsedTime);
+		
+		moveTime = elapsedTime;
+		getCreaturePosition(runner, runnerPosition);
+		taskRunner.run(creatures.size(), moveTask);
+		
+		areCreaturesMoving = true;
+		for(int i = 0; i < maxSpeeds.length; i++) maxSpeeds[i] = 0f;
+		
+		for(int i = 0, n = creatures.size(); i < n; i++) {
 			Creature c = creatures.get(i);
-			c.move(elapsedTime);
+			c.applyMove();
+			creatureGrid.update(c);
+			if(!isAdvancing) thinkScheduler.scheduleDecision(c, clock.getTime());
+			
+			Box move = c.getLastMove();
+			if(c.eaterProxy != -1) contacts.setBounds(c.eaterProxy, move.getLeft(), move.getRight(), move.getBottom(), move.getTop());
+			if(c.preyProxy != -1) contacts.setBounds(c.preyProxy, move.getLeft(), move.getRight(), move.getBottom(), move.getTop());
+			
+			int type = c.getType().ordinal();
+			maxSpeeds[type] = Math.max(maxSpeeds[type], c.getSpeed());
 		}
 		
+		areCreaturesMoving = false;
+		
+		contacts.findPairs();
 		reapCreatures();
-		cleanUpSmallLines();
+		
+		if(clock.getTime() >= nextLineCleanUp) {
+			cleanUpSmallLines();
+			nextLineCleanUp = clock.getTime() + lineCleanUpPeriod;
+		}
+
+		// Check if runner has hit a line at any point during its move
+		// only lines in the band swept by the runner can have been touched
+		Box collisionStart = runner.getCollisionStartBox();
+		Box collisionEnd = runner.getCollisionBox();
+		nearbyLines.clear();
+		lineIndex.query(runner.getSweptCollisionBox(), nearbyLines);
+		
+		float earliestImpact = Box.NO_IMPACT;
+		
+		for(int i = 0, n = nearbyLines.size; i < n; i++) {
+			int index = lines.getIndex(nearbyLines.get(i));
+			if(runner.getHandle() == lines.getOwner(index)) continue;
+			
+			Box lineBounds = lines.getBoundingBox(index, lineBox);
+			float impact = Box.getTimeOfImpact(collisionStart, collisionEnd, lineBounds, lineBounds);
+			if(impact != Box.NO_IMPACT && (earliestImpact == Box.NO_IMPACT || impact < earliestImpact))
+				earliestImpact = impact;
+		}
+		
+		if(earliestImpact != Box.NO_IMPACT) endGame(GameOverReason.LINE, earliestImpact);
+	}
 
-		// Check if runner has hit a line
-		Box collisionBox = runner.getCollisionBox();
+	/**
+	 * Advances this world by a period of time, stepping straight from one event to the next
+	 * rather than in ticks of a fixed size.
+	 * <p>Creatures only move in straight lines at constant speeds between turns, so the time until the
+	 * next thing that could change - a spawn, a level up, a creature entering or leaving the world,
+	 * reaching a waypoint, getting scared or running into a line - can be worked out in advance.
+	 * Events are kept in a priority queue and each step ticks the world up to the earliest one.
+	 * Collisions within a step are found by swept tests so long steps do not miss them.
+	 * Lines laid during a step are only considered for events from the next step.
+	 * <p>Durations are in game time, so the time scale does not apply.
+	 * @param duration Time in seconds to advance by.
+	 * @param maxStep Longest single step to take, in seconds.
+	 * This bounds how stale events caused by newly laid lines can get.
+	 */
+	public void advance(float duration, float maxStep) {
+		if(maxStep <= 0f) throw new IllegalArgumentException("maximum step must be positive");
+		
+		float remaining = duration;
+		isAdvancing = true;
+		
+		while(remaining > 0f && !isGameOver) {
+			scheduleEvents(maxStep);
+			
+			float step = events.peekTime() - clock.getTime();
+			step = Math.max(step, MIN_EVENT_STEP);
+			step = Math.min(step, Math.min(maxStep, remaining));
+			
+			tick(step);
+			remaining -= step;
+		}
+		
+		isAdvancing = false;
+	}
+	
+	/**
+	 * Gets the fastest speed of any creature of the specified types as of the last update.
+	 * @param typeMask Mask of {@link CreatureType} bits.
+	 * @return Speed or 0 if there are no creatures of those types.
+	 */
+	public float getMaxSpeed(int typeMask) {
+		float max = 0f;
+		
+		for(int i = 0; i < maxSpeeds.length; i++) {
+			if((typeMask & (1 << i)) != 0) max = Math.max(max, maxSpeeds[i]);
+		}
 		
-		for(int i = 0, n = lines.size; i < n; i++) {
-			Line l = lines.get(i);
+		return max;
+	}
+	
+	/**
+	 * Gets the time until a box moving in a straight line first touches a line that it is not already touching.
+	 * @param box Box to move.
+	 * @param direction Direction of movement.
+	 * @param speed Speed of movement.
+	 * @param ignoredOwner Handle of a creature whose line should be ignored, or {@link LineStore#NONE}.
+	 * @param horizon Furthest ahead to look, in seconds.
+	 * @return Time in seconds or the horizon if no line is touched within it.
+	 */
+	float getTimeToLineContact(Box box, Direction direction, float speed, int ignoredOwner, float horizon) {
+		if(speed <= 0f) return horizon;
+		
+		float distance = speed * horizon;
+		sweptBox.set(box);
+		sweptBox.grow(distance, direction);
+		contactBox.set(box);
+		contactBox.move(distance, direction);
+		
+		nearbyLines.clear();
+		lineIndex.query(sweptBox, nearbyLines);
+		
+		float earliest = 1f;
+		
+		for(int i = 0, n = nearbyLines.size; i < n; i++) {
+			int index = lines.getIndex(nearbyLines.get(i));
+			if(ignoredOwner != LineStore.NONE && lines.getOwner(index) == ignoredOwner) continue;
 			
-			if(runner != l.getOwner() && collisionBox.intersects(l.getBoundingBox())) {
-				isGameOver = true;
-				gameOverReason = GameOverReason.LINE;
+			Box lineBounds = lines.getBoundingBox(index, lineBox);
+			float impact = Box.getTimeOfImpact(box, contactBox, lineBounds, lineBounds);
+			
+			// lines already being touched are handled by swept collision as the box moves over them
+			if(impact > 0f && impact < earliest) earliest = impact;
+		}
+		
+		return earliest * horizon;
+	}
+	
+	/**
+	 * Schedules events for anything that does not have an up to date event.
+	 * @param horizon Furthest ahead worth looking, in seconds.
+	 */
+	private void scheduleEvents(float horizon) {
+		float now = clock.getTime();
+		
+		// a new creature can change the events of every other creature - such as scaring a worker
+		boolean hasNewCreature = false;
+		for(int i = 0, n = creatures.size(); i < n; i++) {
+			if(!events.contains(EVENT_FIRST_CREATURE + creatures.get(i).id)) {
+				hasNewCreature = true;
 				break;
 			}
 		}
 		
-		// Update level
-		calculateLevel();
+		for(int i = 0, n = creatures.size(); i < n; i++) {
+			Creature c = creatures.get(i);
+			int key = EVENT_FIRST_CREATURE + c.id;
+			
+			while(scheduledMotionVersions.size <= c.id) scheduledMotionVersions.add(0);
+			
+			if(hasNewCreature || events.getTime(key) <= now || scheduledMotionVersions.get(c.id) != c.motionVersion) {
+				events.set(key, now + Math.min(c.getTimeToNextEvent(horizon), horizon));
+				scheduledMotionVersions.set(c.id, c.motionVersion);
+			}
+		}
+		
+		events.set(EVENT_WORKER_SPAWN, workerNest.getNextSpawnTime());
+		events.set(EVENT_LAYER_SPAWN, layerNest.getNextSpawnTime());
+		events.set(EVENT_LEVEL_UP, timeOfNextLevelUp);
 	}
-
+	
 	/**
 	 * Actually adds any lines that have been queued for addition to this world.
 	 */
 	public void flushLinesQueue() {
 		// Actually add any new slime trails to the world
-		if(linesToAdd.size > 0) {
-			lines.addAll(linesToAdd);
-			linesToAdd.clear();
+		int firstNewLine = lines.size();
+		lines.flush();
+		
+		for(int i = firstNewLine, n = lines.size(); i < n; i++) {
+			int handle = lines.getHandle(i);
+			lineIndex.add(handle);
+			lines.setProxy(handle, broadphase.createProxy(SweepAndPrune.GROUP_SECONDARY, handle));
+			
+			if(areCreaturesMoving) lateLines.add(handle);
 		}
 	}
 	
@@ -225,11 +766,80 @@ public class World implements Resettable {
 	}
 	
 	/**
-	 * Gets the pool of lines used in this world.
-	 * @return
+	 * Removes a live line from this world. If a creature is laying the line it stops laying it.
+	 * The last line in this world takes the index of the removed line.
+	 * @param line Handle of the line to remove.
+	 */
+	void removeLine(int line) {
+		LineCreature owner = (LineCreature)resolveCreature(lines.getOwner(lines.getIndex(line)));
+		if(owner != null) owner.removeLine();
+		
+		lineIndex.remove(line);
+		broadphase.destroyProxy(lines.getProxy(line));
+		lines.remove(line);
+	}
+	
+	/**
+	 * Removes the part of a line that intersects a box. See {@link LineStore#removeIntersection(int, Box)}.
+	 * If the end of the line is removed, the creature laying it stops laying it.
+	 * @param line Handle of the line to cut.
+	 * @param b Box to remove from the line.
+	 */
+	void cutLine(int line, Box b) {
+		// if end of line == creature, when end is removed need to remove the line from the creature
+		if(lines.removeIntersection(line, b) == LineStore.END_REMOVED) {
+			LineCreature owner = (LineCreature)resolveCreature(lines.getOwner(lines.getIndex(line)));
+			if(owner != null) owner.removeLine();
+		}
+	}
+	
+	/**
+	 * Adds every line that a creature that eats lines might have moved over this tick to an array.
+	 * Lines are only guaranteed to be included when this is called while the creature's move is being applied.
+	 * @param c Creature that has moved.
+	 * @param result Array to add line handles to. Existing contents are not cleared.
+	 */
+	void getLinesNear(Creature c, IntArray result) {
+		for(int pair = broadphase.getFirstPair(c.broadphaseProxy);
+				pair != SweepAndPrune.NONE;
+				pair = broadphase.getNextPair(pair)) {
+			// lines removed since the pairs were found no longer have any data
+			int line = broadphase.getData(broadphase.getPairProxy(pair));
+			if(line != SweepAndPrune.NONE) result.add(line);
+		}
+		
+		result.addAll(lateLines);
+	}
+	
+	/**
+	 * Updates broadphase bounds to cover the furthest every line eater and line could reach
+	 * by the end of this tick and finds all line eater/line pairs that could overlap.
+	 * @param elapsedTime Duration of this tick.
 	 */
-	Pool<Line> getLinePool() {
-		return linePool;
+	private void updateBroadphase(float elapsedTime) {
+		for(int i = 0, n = creatures.size(CreatureComponent.EATS_LINES); i < n; i++) {
+			Creature c = creatures.get(CreatureComponent.EATS_LINES, i);
+			Box b = c.getHeadBox();
+			float reach = c.getMaxMoveDistance(elapsedTime);
+			broadphase.setBounds(c.broadphaseProxy,
+					b.getLeft() - reach, b.getRight() + reach, b.getBottom() - reach, b.getTop() + reach);
+		}
+		
+		for(int i = 0, n = lines.size(); i < n; i++) {
+			lines.getBoundingBox(i, broadphaseBox);
+			
+			// lines still being laid will be extended by their owner's move
+			Creature owner = resolveCreature(lines.getOwner(i));
+			if(owner != null) {
+				broadphaseBox.grow(owner.getSpeed() * elapsedTime, lines.getDirection(i));
+			}
+			
+			broadphase.setBounds(lines.getProxy(lines.getHandle(i)), broadphaseBox.getLeft(), broadphaseBox.getRight(),
+					broadphaseBox.getBottom(), broadphaseBox.getTop());
+		}
+		
+		broadphase.findPairs();
+		lateLines.clear();
 	}
 	
 	/**
@@ -243,47 +853,81 @@ public class World implements Resettable {
 		// Critters that have died are queued and then all removed at once as
 		// a critter that has just gone out of bounds could have just eaten another critter
 		
-		for(int i = 0, n = creatures.size; i < n; i++) {
+		for(int i = 0, n = creatures.size(); i < n; i++) {
 			Creature c = creatures.get(i);
 			
-			// Check if this critter has gone out of bounds
-			Segment head = c.getHead();
-			Point p = head.getPosition();
-			Box b = head.getBoundingBox();
+			// creatures spawn off screen so only check for out of bounds once they have entered the world
+			if(!c.hasEnteredWorld()) continue;
+			
+			Point p = c.getHeadPosition();
 			float x = p.getX();
 			float y = p.getY();
-
-			// creatures spawn off screen so only check for out of bounds once they have entered the world
-			if(c.hasEnteredWorld()) {
-				if(x < 0f || x > width || y < 0f || y > height) {
-					if(runner == c) {
-						isGameOver = true;
-						gameOverReason = GameOverReason.OUT_OF_BOUNDS;
-					}
-					else creaturesToRemove.add(c);
-				}
+			
+			if(x < 0f || x > width || y < 0f || y > height) {
+				if(runner == c) endGame(GameOverReason.OUT_OF_BOUNDS, 1f);
+				else creaturesToRemove.add(c);
 			}
+		}
+		
+		for(int i = 0, n = creatures.size(CreatureComponent.EATS_CREATURES); i < n; i++) {
+			Creature c = creatures.get(CreatureComponent.EATS_CREATURES, i);
+			Box b = c.getHeadBox();
 			
-			// Check if there are any other critters eaten by current critter
-			if(c.canEatCreatures()) {
-				for(int j = 0; j < n; j++) {
-					if(i == j) continue;
-					Creature otherCreature = creatures.get(j);
-					if(!otherCreature.canBeEaten()) continue;
-					
-					if(b.intersects(otherCreature.getHead().getBoundingBox())) {
-						if(runner == otherCreature) {
-							isGameOver = true;
-							gameOverReason = GameOverReason.CREATURE;
-						}
-						else creaturesToRemove.add(otherCreature);
-					}
-				}
+			// Check if there are any other critters eaten by current critter at any point during the move
+			// only creatures whose moves overlap this critter's move can have been touched
+			for(int pair = contacts.getFirstPair(c.eaterProxy);
+					pair != SweepAndPrune.NONE;
+					pair = contacts.getNextPair(pair)) {
+				Creature otherCreature = getCreature(contacts.getData(contacts.getPairProxy(pair)));
+				if(otherCreature == c) continue;
+				
+				float impact = Box.getTimeOfImpact(c.getMoveStart(), b,
+						otherCreature.getMoveStart(), otherCreature.getHeadBox());
+				if(impact == Box.NO_IMPACT) continue;
+				
+				if(runner == otherCreature) endGame(GameOverReason.CREATURE, impact);
+				else creaturesToRemove.add(otherCreature);
 			}
 		}
 		
+		int removed = 0;
+		
+		for(int i = 0, n = creaturesToRemove.size; i < n; i++) {
+			Creature c = creaturesToRemove.get(i);
+			
+			// a creature can be eaten twice, or eaten as it leaves the world, but must only be freed once
+			if(!creatures.remove(c)) continue;
+			creaturesToRemove.set(removed++, c);
+			
+			creatureGrid.remove(c);
+			for(int s = 0, count = c.getSegmentCount(); s < count; s++) segmentTree.remove(c.getSegment(s));
+			events.remove(EVENT_FIRST_CREATURE + c.id);
+			
+			if(c.broadphaseProxy != -1) broadphase.destroyProxy(c.broadphaseProxy);
+			if(c.eaterProxy != -1) contacts.destroyProxy(c.eaterProxy);
+			if(c.preyProxy != -1) contacts.destroyProxy(c.preyProxy);
+			c.broadphaseProxy = -1;
+			c.eaterProxy = -1;
+			c.preyProxy = -1;
+		}
+		
+		creaturesToRemove.truncate(removed);
 		freeAllCreatures(creaturesToRemove);
-		creatures.removeAll(creaturesToRemove, true); // actually remove dead creatures
+		creaturesToRemove.clear();
+	}
+	
+	/**
+	 * Ends the game unless it has already ended earlier in the current update.
+	 * When two things end the game at the same time, the last one to be reported is the reason.
+	 * @param reason Reason the game ended.
+	 * @param time Time of the event as a fraction of the update's elapsed time.
+	 */
+	private void endGame(GameOverReason reason, float time) {
+		if(isGameOver && time > gameOverTime) return;
+		
+		isGameOver = true;
+		gameOverReason = reason;
+		gameOverTime = time;
 	}
 	
 	/**
@@ -292,24 +936,30 @@ public class World implements Resettable {
 	 */
 	private void freeAllCreatures(Array<Creature> creatures) {
 		for(int i = 0, n = creatures.size; i < n; i++) {
-			Creature c = creatures.get(i);
-			if(c instanceof Worker) workerNest.free((Worker)c);
-			else if(c instanceof Layer) layerNest.free((Layer)c);
+			freeCreature(creatures.get(i));
 		}
 	}
 	
+	/**
+	 * Returns a creature to the nest it was spawned from, if any.
+	 * @param c Creature that is no longer in this world.
+	 */
+	private void freeCreature(Creature c) {
+		Nest<?> nest = nests[c.getType().ordinal()];
+		if(nest != null) nest.freeCreature(c);
+	}
+	
 	/**
 	 * Removes any small lines.
 	 */
 	private void cleanUpSmallLines() {
-		Iterator<Line> lineIterator = lines.iterator();
+		int i = 0;
 		
-		while(lineIterator.hasNext()) {
-			Line l = lineIterator.next();
-			if(l.getOwner() == null && l.getLength() < MINIMUM_LINE_LENGTH) {
-				lineIterator.remove();
-				linePool.free(l);
+		while(i < lines.size()) {
+			if(lines.getOwner(i) == LineStore.NONE && lines.getLength(i) < MINIMUM_LINE_LENGTH) {
+				removeLine(lines.getHandle(i)); // last line takes this index
 			}
+			else i++;
 		}
 	}
 	
@@ -379,9 +1029,12 @@ public class World implements Resettable {
 			workerNest.setSpeedMultiplier(difficultyModifier);
 			layerNest.setSpeedMultiplier(difficultyModifier);
 			
-			for(int i = 0, n = creatures.size; i < n; i++) {
+			for(int i = 0, n = creatures.size(); i < n; i++) {
 				creatures.get(i).setSpeedMultiplier(difficultyModifier);
 			}
+			
+			timers.cancel(levelUpTimer);
+			levelUpTimer = timers.schedule(timeOfNextLevelUp, levelUp);
 		}
 	}
 	
@@ -391,23 +1044,28 @@ public class World implements Resettable {
 	@Override
 	public void reset() {
 		clock.reset();
+		nextLineCleanUp = 0f;
 		
 		level =  0;
 		timeOfNextLevelUp = 0f;
 		calculateLevel();
 		
-		freeAllCreatures(creaturesToRemove);
-		creaturesToRemove.clear();
-		freeAllCreatures(creatures);
+		for(int i = 0, n = creatures.size(); i < n; i++) {
+			freeCreature(creatures.get(i));
+		}
 		creatures.clear();
+		creatureGrid.clear();
+		segmentTree.clear();
 		
 		layerNest.reset();
 		workerNest.reset();
 		
-		linePool.freeAll(linesToAdd);
-		linesToAdd.clear();
-		linePool.freeAll(lines);
 		lines.clear();
+		lineIndex.clear();
+		lateLines.clear();
+		broadphase.clear();
+		contacts.clear();
+		events.clear();
 		
 		// Reset runner, put it back to start point and add it back to this world
 		runner.reset();
@@ -415,6 +1073,7 @@ public class World implements Resettable {
 		add(runner);
 		
 		gameOverReason = GameOverReason.NONE;
+		gameOverTime = 0f;
 		isGameOver = false;
 	}
 }
@@ -1,7 +1,7 @@
 package com.supergreenowl.slugs.view;
 
 import com.badlogic.gdx.graphics.Color;
-import com.supergreenowl.slugs.model.World;
+import com.badlogic.gdx.math.MathUtils;
 
 public class ColourPalette {
 
@@ -94,7 +94,7 @@ public class ColourPalette {
 	 * @return Selected palette.
 	 */
 	public static ColourPalette randomPalette() {
-		int palette = World.generator.nextInt(RAINBOW.length);
+		int palette = MathUtils.random(RAINBOW.length - 1);
 		return RAINBOW[palette];
 	}
 }
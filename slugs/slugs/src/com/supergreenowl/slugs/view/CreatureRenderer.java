@@ -2,36 +2,47 @@ package com.supergreenowl.slugs.view;
 
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.supergreenowl.slugs.model.Layer;
-import com.supergreenowl.slugs.model.Runner;
-import com.supergreenowl.slugs.model.Worker;
-import com.supergreenowl.slugs.model.Box;
-import com.supergreenowl.slugs.model.Creature;
-import com.supergreenowl.slugs.model.Segment;
+import com.supergreenowl.slugs.model.CreatureType;
 
 public class CreatureRenderer {
 
+	private static final CreatureType[] TYPES = CreatureType.values();
+	
 	ColourPalette palette;
 	
 	public CreatureRenderer(ColourPalette palette) {
 		this.palette = palette;
 	}
 	
-	public void render(ShapeRenderer renderer, Creature c) {
-		renderer.setColor(getColour(c));
+	/**
+	 * Renders every creature segment in a snapshot.
+	 * @param renderer Renderer to draw with.
+	 * @param snapshot Snapshot to draw.
+	 */
+	public void render(ShapeRenderer renderer, WorldSnapshot snapshot) {
+		float[] rects = snapshot.segmentRects;
+		int[] colours = snapshot.segmentColours;
+		int colour = -1;
 		
-		for(Segment segment : c) {
-			Box b = segment.getBoundingBox();
-			renderer.rect(b.getLeft(), b.getBottom(), b.getWidth(), b.getHeight());
+		for(int i = 0, n = snapshot.segmentCount; i < n; i++) {
+			// segments of a creature are together so the colour rarely changes
+			if(colours[i] != colour) {
+				colour = colours[i];
+				renderer.setColor(getColour(TYPES[colour]));
+			}
+			
+			int r = i * 4;
+			renderer.rect(rects[r], rects[r + 1], rects[r + 2], rects[r + 3]);
 		}
 	}
 	
-	private Color getColour(Creature c) {
-		if(c instanceof Worker) return palette.worker;
-		else if(c instanceof Layer) return palette.layer;
-		else if(c instanceof Runner) return palette.runner;
-		
-		return Color.BLACK;
+	private Color getColour(CreatureType type) {
+		switch(type) {
+		case WORKER: return palette.worker;
+		case LAYER: return palette.layer;
+		case RUNNER: return palette.runner;
+		default: return Color.BLACK;
+		}
 	}
 
 }
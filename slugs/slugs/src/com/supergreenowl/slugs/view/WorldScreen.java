@@ -4,21 +4,52 @@ import com.badlogic.gdx.Game;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.supergreenowl.sgdx.FrameGovernor;
 import com.supergreenowl.sgdx.GameClock;
 import com.supergreenowl.sgdx.HighScore;
 import com.supergreenowl.sgdx.HighScoreBoard;
 import com.supergreenowl.sgdx.ShapeScreen;
-import com.supergreenowl.slugs.model.Creature;
+import com.supergreenowl.sgdx.Simulation;
+import com.supergreenowl.sgdx.SimulationThread;
+import com.supergreenowl.sgdx.TimerWheel;
+import com.supergreenowl.sgdx.TouchQueue;
 import com.supergreenowl.slugs.model.World;
 
-public class WorldScreen extends ShapeScreen {
-
+/**
+ * Screen that plays the game.
+ * <p>The world is always drawn from a {@link WorldSnapshot}. On devices with more than one core the world
+ * is updated on its own thread, which publishes a snapshot after each batch of updates, so a slow update
+ * never drops a frame. Otherwise the world is updated on the render thread and a snapshot is taken each frame,
+ * part way between the last two updates.
+ * <p>While the simulation thread is running, the world and the game state below are only touched by that thread.
+ * <p>Touches are queued with the time they happened and each one is applied part way through the update
+ * that covers that time, so turns land where the player made them whatever the frame rate.
+ * <p>When frames go over budget, a {@link FrameGovernor} makes creatures think less often, then cleans up
+ * small lines less often, then spawns creatures less often and finally stops smoothing motion between updates,
+ * undoing each in turn once the device catches up.
+ * @author Luke
+ *
+ */
+public class WorldScreen extends ShapeScreen implements Simulation<WorldSnapshot> {
+	
 	private static final float RESET_PAUSE_DURATION = 1.5f;
 	private static final String SCORES_NAME = "com.supergreenowl.slugs.scores";
 	private static final String RETRY_TEXT = "try again?";
 	
 	private static final float TEXT_LINE_HEIGHT = 20f;
 	
+	// the world is updated at a steady rate whatever the frame rate
+	private static final float TIME_STEP = 1f / 60f;
+	private static final int MAX_STEPS_PER_FRAME = 5;
+	
+	private static final float NANOS_PER_SECOND = 1000000000f;
+	private static final int TOUCH_QUEUE_CAPACITY = 32;
+	
+	// how much is given up when over budget
+	private static final float DEGRADED_THINK_PERIOD_SCALE = 2f;
+	private static final float DEGRADED_LINE_CLEAN_UP_PERIOD = 0.5f;
+	private static final float DEGRADED_SPAWN_INTERVAL_SCALE = 1.5f;
+	
 	private CreatureRenderer creatureRenderer;
 	private LineRenderer lineRenderer;
 	private TextRenderer textRenderer;
@@ -26,8 +57,19 @@ public class WorldScreen extends ShapeScreen {
 	
 	private ColourPalette palette;
 	
+	// number of the game that the palette was chosen for
+	private int paletteGame = 0;
+	
+	// runs from the end of a game until a new game can be started
 	private GameClock pauseClock = new GameClock();
 	private boolean isReadyToReset = false;
+	private final TimerWheel.Callback readyToReset = new TimerWheel.Callback() {
+		@Override
+		public void onTimer(float time) {
+			isReadyToReset = true;
+		}
+	};
+	private int game = 0;
 	
 	private HighScoreBoard scores = null;
 	private boolean isScoreChecked = false;
@@ -35,7 +77,36 @@ public class WorldScreen extends ShapeScreen {
 	
 	private HighScore previousScore;
 	
+	// null when the world is updated on the render thread
+	private final SimulationThread<WorldSnapshot> simulationThread;
+	private final WorldSnapshot snapshot = new WorldSnapshot();
+	
+	// touches are added by the render thread and taken by whichever thread updates the world
+	private final TouchQueue touches = new TouchQueue(TOUCH_QUEUE_CAPACITY);
+	
+	// set by the render thread and applied by whichever thread updates the world
+	private volatile float timeScale = 1f;
+	
+	// actions are taken by whichever thread updates the world
+	private final FrameGovernor governor = new FrameGovernor(TIME_STEP);
+	private boolean isInterpolated = true;
+	
+	/**
+	 * Creates a new world screen that updates the world on its own thread if there is more than one core.
+	 * @param game Game the screen is part of.
+	 * @param world World to play in.
+	 */
 	public WorldScreen(Game game, World world) {
+		this(game, world, Runtime.getRuntime().availableProcessors() > 1);
+	}
+	
+	/**
+	 * Creates a new world screen.
+	 * @param game Game the screen is part of.
+	 * @param world World to play in.
+	 * @param isThreaded True to update the world on its own thread, false to update it on the render thread.
+	 */
+	public WorldScreen(Game game, World world, boolean isThreaded) {
 		super(game, new FitViewport(world.getWidth(), world.getHeight()));
 		
 		setBackgroundColour(Color.BLACK);
@@ -48,31 +119,88 @@ public class WorldScreen extends ShapeScreen {
 		lineRenderer = new LineRenderer(palette);
 		textRenderer = new TextRenderer(palette, 2f);
 		setDrawFilled(true);
+		setTouchQueue(touches);
+		
+		pauseClock.setTimers(new TimerWheel(TIME_STEP, 1));
+		
+		addGovernorActions();
+		setFrameGovernor(governor);
+		
+		if(isThreaded) {
+			simulationThread = new SimulationThread<WorldSnapshot>(this,
+					new WorldSnapshot(), new WorldSnapshot(), new WorldSnapshot(), TIME_STEP, MAX_STEPS_PER_FRAME);
+			simulationThread.setFrameGovernor(governor);
+			governor.setConcurrent(true);
+		}
+		else {
+			simulationThread = null;
+			setFixedTimeStep(TIME_STEP, MAX_STEPS_PER_FRAME);
+		}
 		
 		scores = HighScoreBoard.load(SCORES_NAME);
 		if(scores == null) {
 			scores = new HighScoreBoard(1);
 		}
 	}
-
+	
+	@Override
+	public void show() {
+		super.show();
+		if(simulationThread != null) simulationThread.start();
+	}
+	
+	@Override
+	public void hide() {
+		if(simulationThread != null) simulationThread.stop();
+		super.hide();
+	}
+	
+	@Override
+	public void pause() {
+		if(simulationThread != null) simulationThread.stop();
+		super.pause();
+	}
+	
+	@Override
+	public void resume() {
+		super.resume();
+		if(simulationThread != null) simulationThread.start();
+	}
+	
+	@Override
+	public void dispose() {
+		if(simulationThread != null) simulationThread.stop();
+		super.dispose();
+	}
 	
 	@Override
 	protected void drawFilled(ShapeRenderer renderer, float elapsedSeconds) {
 		
+		WorldSnapshot s;
+		if(simulationThread != null) s = simulationThread.getSnapshot();
+		else {
+			// nothing moves once the game is over so show where everything stopped
+			capture(snapshot, world.isGameOver() || !isInterpolated ? 1f : getInterpolationAlpha());
+			s = snapshot;
+		}
+		
+		// change colour on retry
+		if(s.game != paletteGame) {
+			paletteGame = s.game;
+			setPalette(ColourPalette.randomPalette());
+		}
+		
 		// draw world background
 		renderer.setColor(palette.background);
 		renderer.rect(0f, 0f, world.getWidth(), world.getHeight());
 		
 		// Draw lines first so that creatures are on top of lines
-		lineRenderer.renderLines(renderer, world.getLines());
-				
-		for(Creature c : world.getCreatures()) {
-			creatureRenderer.render(renderer, c);
-		}
-
-		boolean isGameOver = world.isGameOver();
-		int level = world.getLevel();
-		int seconds = world.getClock().getTotalSeconds();
+		lineRenderer.renderLines(renderer, s);
+		creatureRenderer.render(renderer, s);
+		
+		boolean isGameOver = s.isGameOver;
+		int level = s.level;
+		int seconds = s.seconds;
 		
 		if(!isGameOver) {
 			textRenderer.setAlignment(TextRenderer.HorizontalAlignment.RIGHT, TextRenderer.VerticalAlignment.BOTTOM);
@@ -90,29 +218,64 @@ public class WorldScreen extends ShapeScreen {
 			
 			textRenderer.setAlignment(TextRenderer.HorizontalAlignment.CENTRE, TextRenderer.VerticalAlignment.MIDDLE);
 			
-			if(isScoreChecked && isHighScore)
+			if(s.isNewRecord)
 				textRenderer.render(renderer, "new record", x, y + (TEXT_LINE_HEIGHT * 3f));
 			
-			textRenderer.render(renderer, "level " + world.getLevel(), x, y + TEXT_LINE_HEIGHT + TEXT_LINE_HEIGHT);
+			textRenderer.render(renderer, "level " + level, x, y + TEXT_LINE_HEIGHT + TEXT_LINE_HEIGHT);
 			textRenderer.render(renderer, "survived " + seconds + " seconds", x, y);
-			textRenderer.render(renderer, getGameOverText(world.getGameOverReason()), x, y - TEXT_LINE_HEIGHT);
+			textRenderer.render(renderer, getGameOverText(s.gameOverReason), x, y - TEXT_LINE_HEIGHT);
 			
 			y -= TEXT_LINE_HEIGHT * 3f;
 			
-			if(isReadyToReset)
+			if(s.isReadyToReset)
 				textRenderer.render(renderer, RETRY_TEXT, x, y);
 			
-			if(previousScore != null) {
+			if(s.previousScore != -1) {
 				y = world.getHeight() - TEXT_LINE_HEIGHT - TEXT_LINE_HEIGHT;
-				textRenderer.render(renderer, "record " + previousScore.score + " seconds", x, y);
+				textRenderer.render(renderer, "record " + s.previousScore + " seconds", x, y);
 			}
 		}
 	}
 	
 	@Override
 	protected void update(float elapsed) {
+		// the simulation thread does all the updating when there is one
+		if(simulationThread == null) step(elapsed, getUpdateEndTime());
+	}
+	
+	/**
+	 * Sets how fast the game runs compared to real time, such as to watch a game faster than it was played.
+	 * The pause before a new game can be started is scaled too.
+	 * @param timeScale Game seconds per real second, where 1 is real time.
+	 */
+	public void setTimeScale(float timeScale) {
+		if(timeScale <= 0f) throw new IllegalArgumentException("time scale must be positive");
+		this.timeScale = timeScale;
+	}
+	
+	@Override
+	public void step(float timeStep, long endTime) {
+		float scale = timeScale;
+		world.setTimeScale(scale);
+		pauseClock.setTimeScale(scale);
+		
+		long startTime = endTime - (long)(timeStep * NANOS_PER_SECOND);
+		float time = 0f;
+		
+		// split the update at each touch - touches from before this step are applied at its start
+		while(touches.hasTouchBy(endTime)) {
+			float touchTime = Math.max(0f, Math.min(timeStep, (touches.getTime() - startTime) / NANOS_PER_SECOND));
+			if(touchTime > time) {
+				world.update(touchTime - time);
+				time = touchTime;
+			}
+			
+			handleTouch(touches.getX(), touches.getY());
+			touches.remove();
+		}
+		
 		// Update world
-		world.update(elapsed);
+		if(timeStep > time) world.update(timeStep - time);
 		
 		if(world.isGameOver()) {
 			
@@ -123,15 +286,87 @@ public class WorldScreen extends ShapeScreen {
 				previousScore = scores.getTopScore();
 				isHighScore = scores.addScore(score);
 				if(isHighScore) scores.save(SCORES_NAME);
+				
+				pauseClock.getTimers().schedule(RESET_PAUSE_DURATION, readyToReset);
 			}
 			
-			pauseClock.tick(elapsed);
-			if(pauseClock.getTime() > RESET_PAUSE_DURATION) isReadyToReset = true;
+			pauseClock.tick(timeStep);
 		}
 	}
-
+	
+	/**
+	 * Gets the governor that keeps frames within budget, so that its state can be logged.
+	 * @return Frame governor.
+	 */
+	public FrameGovernor getFrameGovernor() {
+		return governor;
+	}
+	
 	@Override
-	protected void onTouch(float x, float y) {
+	public void write(WorldSnapshot snapshot) {
+		capture(snapshot, 1f);
+	}
+	
+	/**
+	 * Adds the actions taken when frames are over budget, cheapest loss in quality first.
+	 */
+	private void addGovernorActions() {
+		governor.addAction(new FrameGovernor.Action() {
+			@Override
+			public void degrade() {
+				world.getThinkScheduler().setPeriodScale(DEGRADED_THINK_PERIOD_SCALE);
+			}
+			
+			@Override
+			public void restore() {
+				world.getThinkScheduler().setPeriodScale(1f);
+			}
+		});
+		
+		governor.addAction(new FrameGovernor.Action() {
+			@Override
+			public void degrade() {
+				world.setLineCleanUpPeriod(DEGRADED_LINE_CLEAN_UP_PERIOD);
+			}
+			
+			@Override
+			public void restore() {
+				world.setLineCleanUpPeriod(0f);
+			}
+		});
+		
+		governor.addAction(new FrameGovernor.Action() {
+			@Override
+			public void degrade() {
+				world.setSpawnIntervalScale(DEGRADED_SPAWN_INTERVAL_SCALE);
+			}
+			
+			@Override
+			public void restore() {
+				world.setSpawnIntervalScale(1f);
+			}
+		});
+		
+		// snapshots from the simulation thread are never interpolated so this only helps on the render thread
+		governor.addAction(new FrameGovernor.Action() {
+			@Override
+			public void degrade() {
+				isInterpolated = false;
+			}
+			
+			@Override
+			public void restore() {
+				isInterpolated = true;
+			}
+		});
+	}
+	
+	/**
+	 * Starts a new game or turns the runner in response to a touch.
+	 * @param x
+	 * @param y
+	 */
+	private void handleTouch(float x, float y) {
 		
 		if(isReadyToReset) {
 			pauseClock.reset();
@@ -140,8 +375,7 @@ public class WorldScreen extends ShapeScreen {
 			isScoreChecked = false;
 			isHighScore = false;
 			previousScore = null;
-			
-			setPalette(ColourPalette.randomPalette()); // change colour on retry
+			game++;
 		}
 		else if(!world.isGameOver()) {
 			// Send direction to runner
@@ -149,6 +383,24 @@ public class WorldScreen extends ShapeScreen {
 		}
 	}
 	
+	/**
+	 * Copies the world and game state into a snapshot.
+	 * @param s Snapshot to write.
+	 * @param alpha Fraction of the last update to show.
+	 */
+	private void capture(WorldSnapshot s, float alpha) {
+		s.capture(world, alpha);
+		
+		s.game = game;
+		s.seconds = world.getClock().getTotalSeconds();
+		s.level = world.getLevel();
+		s.isGameOver = world.isGameOver();
+		s.gameOverReason = world.getGameOverReason();
+		s.isNewRecord = isScoreChecked && isHighScore;
+		s.isReadyToReset = isReadyToReset;
+		s.previousScore = previousScore == null ? -1 : previousScore.score;
+	}
+	
 	/**
 	 * Sets the colour palette currently in use.
 	 * @param palette
@@ -171,7 +423,7 @@ public class WorldScreen extends ShapeScreen {
 			return "avoid the lines";
 		case CREATURE:
 			return "avoid other creatures";
-
+		
 		default:
 			return "game over";
 		}
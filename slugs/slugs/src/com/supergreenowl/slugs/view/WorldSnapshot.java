@@ -0,0 +1,141 @@
+package com.supergreenowl.slugs.view;
+
+import com.supergreenowl.slugs.model.Box;
+import com.supergreenowl.slugs.model.Creature;
+import com.supergreenowl.slugs.model.Direction;
+import com.supergreenowl.slugs.model.LineStore;
+import com.supergreenowl.slugs.model.Segment;
+import com.supergreenowl.slugs.model.World;
+
+/**
+ * Everything needed to draw a world at one moment, copied out of the world so that it can be drawn
+ * while the world carries on changing.
+ * <p>Lines and creature segments are kept as flat arrays of rectangles, four floats each in the order
+ * x, y, width, height. Each segment also has a colour id, which is the ordinal of its creature's type.
+ * The arrays only grow, so a snapshot does not allocate once warmed up.
+ * @author Luke
+ *
+ */
+public class WorldSnapshot {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	// lines are modelled as 2 points with 0 width
+	// introduce fake width so they are visible
+	private static final float LINE_WIDTH = 2f;
+	private static final float LINE_HALF_WIDTH = LINE_WIDTH / 2f;
+
+	float[] lineRects = new float[INITIAL_CAPACITY * 4];
+	int lineCount = 0;
+
+	float[] segmentRects = new float[INITIAL_CAPACITY * 4];
+	int[] segmentColours = new int[INITIAL_CAPACITY];
+	int segmentCount = 0;
+
+	/**
+	 * Counts games played in the world, so that the start of a new game can be spotted.
+	 */
+	int game;
+
+	int seconds;
+	int level;
+	boolean isGameOver;
+	World.GameOverReason gameOverReason;
+	boolean isNewRecord;
+	boolean isReadyToReset;
+
+	/**
+	 * Top score before the current game, or -1 if there is none to show.
+	 */
+	int previousScore;
+
+	private final Box box = new Box();
+
+	/**
+	 * Copies the lines and creatures in a world into this snapshot, part way through the creatures' last moves.
+	 * @param world World to copy.
+	 * @param alpha Fraction of the last move to show, from 0 for where it started to 1 for where it is now.
+	 */
+	void capture(World world, float alpha) {
+		captureLines(world, alpha);
+
+		segmentCount = 0;
+		for(Creature c : world.getCreatures()) {
+			captureCreature(c, alpha);
+		}
+	}
+
+	private void captureLines(World world, float alpha) {
+		LineStore lines = world.getLines();
+		int n = lines.size();
+
+		if(lineRects.length < n * 4) lineRects = new float[Math.max(n * 4, lineRects.length * 2)];
+		lineCount = 0;
+
+		for(int i = 0; i < n; i++) {
+			Box b = lines.getBoundingBox(i, box);
+
+			// lines being laid were extended by the last move of their owner
+			Creature c = alpha < 1f ? world.resolveCreature(lines.getOwner(i)) : null;
+			if(c != null) {
+				float back = Math.min((1f - alpha) * c.getLastMoveDistance(), Math.max(0f, lines.getLength(i)));
+				b.grow(-back, lines.getDirection(i));
+			}
+
+			addRect(lineRects, lineCount++, b.getLeft() - LINE_HALF_WIDTH, b.getBottom() - LINE_HALF_WIDTH,
+					b.getWidth() + LINE_WIDTH, b.getHeight() + LINE_WIDTH);
+		}
+	}
+
+	private void captureCreature(Creature c, float alpha) {
+		int colour = c.getType().ordinal();
+
+		// distance to take the creature back by
+		float back = (1f - alpha) * c.getLastMoveDistance();
+
+		for(int i = 0, n = c.getSegmentCount(); i < n; i++) {
+			Segment segment = c.getSegment(i);
+			Box b = segment.getBoundingBox(box);
+
+			if(back > 0f) {
+				Direction d = segment.getDirection();
+				boolean isHead = i == 0;
+				boolean isTail = i == n - 1;
+
+				// undo the move - the head grew and the tail shrank unless there is only one segment
+				if(isHead && isTail) b.move(-back, d);
+				else if(isHead) b.grow(-Math.min(back, segment.getSize()), d);
+				else if(isTail) b.shrink(-back, d);
+			}
+
+			if(segmentColours.length == segmentCount) {
+				int capacity = segmentCount * 2;
+				segmentRects = copyOf(segmentRects, capacity * 4);
+				segmentColours = copyOf(segmentColours, capacity);
+			}
+
+			segmentColours[segmentCount] = colour;
+			addRect(segmentRects, segmentCount++, b.getLeft(), b.getBottom(), b.getWidth(), b.getHeight());
+		}
+	}
+
+	private static void addRect(float[] rects, int index, float x, float y, float width, float height) {
+		int i = index * 4;
+		rects[i] = x;
+		rects[i + 1] = y;
+		rects[i + 2] = width;
+		rects[i + 3] = height;
+	}
+
+	private static float[] copyOf(float[] array, int capacity) {
+		float[] copy = new float[capacity];
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+
+	private static int[] copyOf(int[] array, int capacity) {
+		int[] copy = new int[capacity];
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+}